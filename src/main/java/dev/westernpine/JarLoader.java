@@ -2,25 +2,58 @@ package dev.westernpine;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.file.Files;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import dev.westernpine.exceptions.InvalidJarFileException;
 import dev.westernpine.exceptions.ModuleLoadException;
 import dev.westernpine.objects.DependencyMapper;
+import dev.westernpine.objects.Digests;
 import dev.westernpine.objects.Jar;
+import dev.westernpine.objects.classloaders.DelegationMode;
 import dev.westernpine.objects.classloaders.JarClassLoader;
+import dev.westernpine.objects.classloaders.JarHandlePool;
+import dev.westernpine.objects.classloaders.LoaderRegistry;
+import dev.westernpine.objects.classloaders.MappedJarFile;
+import dev.westernpine.objects.classloaders.ResolutionCache;
 import dev.westernpine.objects.classloaders.WrappedURLClassLoader;
 import dev.westernpine.objects.maven.Dependency;
+import dev.westernpine.objects.maven.DependencyDownloader;
+import dev.westernpine.objects.maven.DependencyLock;
+import dev.westernpine.objects.maven.DependencyResolver;
+import dev.westernpine.objects.maven.DownloadListener;
+import dev.westernpine.objects.module.ClassProfile;
 import dev.westernpine.objects.module.JavaModule;
+import dev.westernpine.objects.module.ModuleIndex;
+import dev.westernpine.objects.module.UnloadReport;
 
 /**
  * JarLoader is an overlysimplified ClassLoader and dependency utility.
@@ -31,7 +64,7 @@ import dev.westernpine.objects.module.JavaModule;
  *  - https://github.com/VelocityPowered
  *  
  * @author WesternPine
- *
+ * 
  */
 public abstract class JarLoader {
 	
@@ -75,16 +108,12 @@ public abstract class JarLoader {
 	@Deprecated
 	public static void loadDependency(ClassLoader loader, Dependency dependency, File saveLocation) {
 		saveLocation = new File(saveLocation.getAbsolutePath());
-		//Download dependency if not exists.
-		if(!saveLocation.exists()) {
-			try {
-				URL url = dependency.getUrl();
-				try (InputStream is = url.openStream()) {
-                    Files.copy(is, saveLocation.toPath());
-                }
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
+		//Download dependency if not exists, or if the existing jar fails verification.
+		try {
+			File location = saveLocation;
+			new DependencyDownloader(1).download(Collections.singletonList(dependency), ignored -> location);
+		} catch (Exception e) {
+			e.printStackTrace();
 		}
 		if (!saveLocation.exists()) {
             throw new RuntimeException("Unable to download dependency: " + dependency.toString());
@@ -100,6 +129,100 @@ public abstract class JarLoader {
         }
 	}
 	
+	/**
+	 * Download dependencies in parallel, and load them into a class loader once every download succeeded. (Only works with URL class loaders!)
+	 * Nothing is added to the class loader if any download fails.
+	 * @param loader The class loader to use.
+	 * @param dependencies The dependencies to import.
+	 * @param saveLocationHandler The file location to look for each jar at, or to save to, using the given dependency.
+	 * @param parallelism The maximum amount of downloads at the same time.
+	 * @param listener The listener receiving the progress of every download, or null.
+	 * @return The jar file of every dependency, in the order given.
+	 * @deprecated Only works with ClassLoaders of type URLClassLoader! As of Java 9, the Java Module system now uses strong encapsulation, meaning a deep-reflective operation of 'setAccessible(boolean accessible)` on reflected objects is now prohibited. If you wish to enable dependency loading, start the JVM with the flag: '--add-opens=java.base/java.net=ALL-UNNAMED' to permit access.
+	 */
+	@Deprecated
+	public static Map<Dependency, File> loadDependencies(ClassLoader loader, Collection<Dependency> dependencies, Function<Dependency, File> saveLocationHandler, int parallelism, DownloadListener listener) {
+		Map<Dependency, File> files;
+		try {
+			files = new DependencyDownloader(parallelism).withListener(listener).download(dependencies, saveLocationHandler);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to download dependencies: " + e.getMessage(), e);
+		}
+		addFiles(loader, files.values());
+		return files;
+	}
+	
+	/**
+	 * Load a dependency set into a class loader through a lockfile. (Only works with URL class loaders!)
+	 * If the lockfile was written for the same dependencies and its jars are still on disk, the locked jars are added straight away, without any resolution or repository access.
+	 * Otherwise the dependencies are resolved, downloaded in parallel, and locked again before being added.
+	 * @param loader The class loader to use.
+	 * @param dependencies The declared dependencies to import.
+	 * @param saveLocationHandler The file location to look for each jar at, or to save to, using the given dependency.
+	 * @param lockFile The lockfile of the dependencies.
+	 * @param resolver The resolver for transitive dependencies, or null to only load the declared dependencies.
+	 * @param parallelism The maximum amount of downloads at the same time.
+	 * @param listener The listener receiving the progress of every download, or null.
+	 * @return The jar files added to the class loader.
+	 * @deprecated Only works with ClassLoaders of type URLClassLoader! As of Java 9, the Java Module system now uses strong encapsulation, meaning a deep-reflective operation of 'setAccessible(boolean accessible)` on reflected objects is now prohibited. If you wish to enable dependency loading, start the JVM with the flag: '--add-opens=java.base/java.net=ALL-UNNAMED' to permit access.
+	 */
+	@Deprecated
+	public static List<File> loadDependencies(ClassLoader loader, Collection<Dependency> dependencies, Function<Dependency, File> saveLocationHandler, File lockFile, DependencyResolver resolver, int parallelism, DownloadListener listener) {
+		DependencyLock lock = DependencyLock.load(lockFile, dependencies);
+		if(!lock.isValid()) {
+			try {
+				List<Dependency> resolved = resolver == null ? new ArrayList<>(dependencies) : resolver.resolve(dependencies);
+				lock.lock(new DependencyDownloader(parallelism).withListener(listener).download(resolved, saveLocationHandler)).save();
+			} catch (IOException e) {
+				throw new RuntimeException("Unable to download dependencies: " + e.getMessage(), e);
+			}
+		}
+		List<File> files = lock.getFiles();
+		addFiles(loader, files);
+		return files;
+	}
+	
+	/*
+	 * Add jar files to a URL class loader, in a single batch.
+	 */
+	private static void addFiles(ClassLoader loader, Collection<File> files) {
+		List<URL> urls = new ArrayList<>();
+		for(File file : files) {
+			try {
+				urls.add(file.toURI().toURL());
+			} catch (MalformedURLException e) {
+				throw new RuntimeException("Unable to load dependency: " + file.toString(), e);
+			}
+		}
+		try {
+			wrapLoader(loader).addURLs(urls);
+		} catch (Exception e) {
+			throw new RuntimeException("Unable to load dependencies: " + files.toString(), e);
+		}
+	}
+	
+	/**
+	 * Create an executor to load modules on.
+	 * @param parallelism The maximum amount of modules to load at the same time. Ignored when using virtual threads.
+	 * @param virtualThreads Whether to start a virtual thread per module instead, if the running Java version supports them (Java 21+).
+	 * @return A new executor service. Shut it down once loading is done.
+	 */
+	public static ExecutorService newModuleExecutor(int parallelism, boolean virtualThreads) {
+		if(virtualThreads) {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException ignored) {
+				//Virtual threads aren't supported, so use platform threads.
+			}
+		}
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "JarLoader-Module-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
 	/*
 	 * 
 	 * Instance
@@ -107,20 +230,379 @@ public abstract class JarLoader {
 	 * 
 	 */
 	
-	private Set<JarClassLoader> loaders;
+	private LoaderRegistry loaders;
+	
+	private Map<String, Set<JarClassLoader>> packages;
+	
+	private Set<JarClassLoader> unindexed;
+	
+	private ResolutionCache resolutionCache;
+	
+	private volatile boolean mappedStorage;
+	
+	private volatile DelegationMode delegationMode;
+	
+	private volatile JarHandlePool jarHandlePool;
+	
+	private volatile File classProfiles;
+	
+	private Map<String, JavaModule> modules;
+	
+	private Map<String, JavaModule> lazyModules;
+	
+	private Map<String, JavaModule> lazyPackages;
+	
+	private volatile boolean sharedLoaders;
+	
+	private Map<String, JarClassLoader> sharedByHash;
+	
+	private Map<String, String> jarHashes;
+	
+	private Map<String, MappedJarFile> nestedJars;
 	
 	/**
 	 * Create a new instance of the JarLoader. This instance saves all the JarClassLoader instances if they are deemed to be unisolated, in this JarLoader instance.
 	 */
 	public JarLoader() {
-		this.loaders =  new CopyOnWriteArraySet<>();
+		this.loaders = new LoaderRegistry();
+		this.packages = new ConcurrentHashMap<>();
+		this.unindexed = new CopyOnWriteArraySet<>();
+		this.resolutionCache = new ResolutionCache();
+		this.delegationMode = DelegationMode.GLOBAL;
+		this.modules = new ConcurrentHashMap<>();
+		this.lazyModules = new ConcurrentHashMap<>();
+		this.lazyPackages = new ConcurrentHashMap<>();
+		this.sharedByHash = new ConcurrentHashMap<>();
+		this.jarHashes = new ConcurrentHashMap<>();
+		this.nestedJars = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Get the cache of class names resolved by, or missing from, the saved loaders.
+	 * @return The resolution cache of this JarLoader, including its hit and miss counters.
+	 */
+	public ResolutionCache getResolutionCache() {
+		return this.resolutionCache;
+	}
+	
+	/**
+	 * 
+	 * @return True if jars added to class loaders of this JarLoader are memory mapped, instead of read through the URLClassLoader class path.
+	 */
+	public boolean isMappedStorage() {
+		return this.mappedStorage;
+	}
+	
+	/**
+	 * Set whether jars added to class loaders of this JarLoader are memory mapped, and their classes defined straight from the mapped bytes, instead of read through the URLClassLoader class path.
+	 * Only affects jars added after this is set. Signed and multi-release jars always use the URLClassLoader class path.
+	 * @param mappedStorage True to memory map added jars.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader setMappedStorage(boolean mappedStorage) {
+		this.mappedStorage = mappedStorage;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * @return The pool of open jar files shared by the class loaders of this JarLoader, or null if jars are kept open by each loader.
+	 */
+	public JarHandlePool getJarHandlePool() {
+		return this.jarHandlePool;
+	}
+	
+	/**
+	 * Set the maximum amount of jar files kept open across every class loader of this JarLoader.
+	 * Jars added after this is set have their entry names indexed in memory, and are read through a shared pool of open jar files, closing idle jar files in least recently used order once the cap is exceeded. Memory mapped storage takes precedence over the pool.
+	 * @param maxOpen The maximum amount of open jar files, or 0 or less to have each loader keep its jars open, the default.
+	 * @return The same JarLoader instance.
+	 */
+	public synchronized JarLoader setMaxOpenJars(int maxOpen) {
+		if(maxOpen <= 0)
+			this.jarHandlePool = null;
+		else if(this.jarHandlePool == null)
+			this.jarHandlePool = new JarHandlePool(maxOpen);
+		else
+			this.jarHandlePool.setMaxOpen(maxOpen);
+		return this;
+	}
+	
+	/**
+	 * 
+	 * @return The directory of the class profiles of modules, or null if class profiles aren't used.
+	 */
+	public File getClassProfiles() {
+		return this.classProfiles;
+	}
+	
+	/**
+	 * Set the directory of the class profiles of modules. See {@link ClassProfile}.
+	 * Modules loaded while this is set record the classes their loader defines, and save them to their profile when unloaded. On the next load, the profiled classes are preloaded in parallel in the background while the main class initializes.
+	 * @param classProfiles The directory of the class profiles, or null to not use class profiles, the default.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader setClassProfiles(File classProfiles) {
+		this.classProfiles = classProfiles;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * @return True if {@link #newLoader(File, boolean)} and {@link #newLoaderWithClass(File, String, boolean)} hand out shared loaders for identical jar contents.
+	 */
+	public boolean isSharedLoaders() {
+		return this.sharedLoaders;
+	}
+	
+	/**
+	 * Set whether {@link #newLoader(File, boolean)} and {@link #newLoaderWithClass(File, String, boolean)} hand out one shared loader per unique jar contents, instead of a new loader per call. See {@link #acquireSharedLoader(File, boolean)}.
+	 * Meant for library jars without state of their own, as every user sees the same classes and static fields.
+	 * @param sharedLoaders True to share loaders between identical jars.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader setSharedLoaders(boolean sharedLoaders) {
+		this.sharedLoaders = sharedLoaders;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * @return An unmodifiable view of the shared loaders in use, by the SHA-256 hash of their jar contents.
+	 */
+	public Map<String, JarClassLoader> getSharedLoaders() {
+		return Collections.unmodifiableMap(this.sharedByHash);
+	}
+	
+	/**
+	 * Get the loader shared by every user of a jar's contents, creating it on first use. Every call adds a user, and each user must close the loader once done with it. The loader only really closes once its last user closes it.
+	 * Jars are identified by the SHA-256 hash of their contents, cached for as long as their size and last modified time don't change.
+	 * @param jarFile The jar file to load.
+	 * @param integrate Whether to save the loader to the list of other loaders to look for classes in. A shared loader stays saved once any user integrates it.
+	 * @return The shared loader of the jar contents.
+	 * @throws InvalidJarFileException If the file isn't a jar file.
+	 * @throws IOException If the jar file can't be hashed.
+	 */
+	public JarClassLoader acquireSharedLoader(File jarFile, boolean integrate) throws InvalidJarFileException, IOException {
+		jarFile = new File(jarFile.getAbsolutePath());
+		if(!jarFile.isFile() || jarFile.getName().equals(".jar") || !jarFile.getName().endsWith(".jar"))
+			throw new InvalidJarFileException(jarFile);
+		String key = jarFile.getPath() + "|" + jarFile.length() + "|" + jarFile.lastModified();
+		String hash = this.jarHashes.get(key);
+		if(hash == null) {
+			hash = Digests.hash(jarFile, Digests.SHA_256);
+			this.jarHashes.put(key, hash);
+		}
+		JarClassLoader loader;
+		synchronized (this.sharedByHash) {
+			loader = this.sharedByHash.get(hash);
+			if(loader == null || !loader.retain()) {
+				loader = new JarClassLoader(this, hash);
+				loader.addFile(jarFile);
+				this.sharedByHash.put(hash, loader);
+			}
+		}
+		return integrate ? loader.integrate() : loader;
+	}
+	
+	/**
+	 * Forget a shared loader, so the next user of its jar contents gets a new loader. Called by the loader once its last user closed it.
+	 * @param loader The closed shared loader.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader forgetSharedLoader(JarClassLoader loader) {
+		if(loader.getContentHash() != null)
+			this.sharedByHash.remove(loader.getContentHash(), loader);
+		return this;
+	}
+	
+	/**
+	 * Open a jar stored inside a jar file, such as "lib/library.jar", without extracting it.
+	 * The outer jar is memory mapped, and the index of it and of every nested jar opened from it is cached for as long as its size and last modified time don't change.
+	 * @param jarFile The jar file holding the nested jar.
+	 * @param entryName The entry name of the nested jar.
+	 * @return A new in memory jar of the nested jar, to be closed by its user, or null if there is no such entry.
+	 * @throws IOException If the jar file or the nested jar can't be read.
+	 */
+	public MappedJarFile openNestedJar(File jarFile, String entryName) throws IOException {
+		jarFile = new File(jarFile.getAbsolutePath());
+		String key = jarFile.getPath() + "|" + jarFile.length() + "|" + jarFile.lastModified() + "!/" + entryName;
+		MappedJarFile nested = this.nestedJars.get(key);
+		if(nested == null) {
+			nested = getOuterJar(jarFile).openNested(entryName);
+			if(nested == null)
+				return null;
+			MappedJarFile previous = this.nestedJars.putIfAbsent(key, nested);
+			if(previous != null)
+				nested = previous;
+		}
+		return nested.reopen();
+	}
+	
+	/**
+	 * Get the names of the jars stored directly in a directory of a jar file.
+	 * @param jarFile The jar file holding the nested jars.
+	 * @param directory The directory of the nested jars inside the jar file, such as "lib/".
+	 * @return The sorted entry names of the nested jars.
+	 * @throws IOException If the jar file can't be read.
+	 */
+	public List<String> getNestedJarNames(File jarFile, String directory) throws IOException {
+		String prefix = directory.isEmpty() || directory.endsWith("/") ? directory : directory + "/";
+		return getOuterJar(new File(jarFile.getAbsolutePath())).getNames().stream()
+				.filter(name -> name.startsWith(prefix) && name.endsWith(".jar") && name.indexOf('/', prefix.length()) < 0)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Forget the cached indexes of jar files and their nested jars. Jars already opened keep working.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader clearNestedJars() {
+		this.nestedJars.clear();
+		return this;
+	}
+	
+	/*
+	 * Get the cached memory mapping of a jar file holding nested jars, dropping the cached indexes of older versions of the file.
+	 */
+	private MappedJarFile getOuterJar(File jarFile) throws IOException {
+		String key = jarFile.getPath() + "|" + jarFile.length() + "|" + jarFile.lastModified();
+		MappedJarFile outer = this.nestedJars.get(key);
+		if(outer == null) {
+			outer = MappedJarFile.map(jarFile);
+			String path = jarFile.getPath() + "|";
+			this.nestedJars.keySet().removeIf(cached -> cached.startsWith(path) && !cached.startsWith(key + "!/") && !cached.equals(key));
+			MappedJarFile previous = this.nestedJars.putIfAbsent(key, outer);
+			if(previous != null)
+				outer = previous;
+		}
+		return outer;
+	}
+	
+	/**
+	 * 
+	 * @return How module loaders search other loaders for classes they can't find themselves.
+	 */
+	public DelegationMode getDelegationMode() {
+		return this.delegationMode;
+	}
+	
+	/**
+	 * Set how module loaders search other loaders for classes they can't find themselves. Only affects modules loaded after this is set.
+	 * @param delegationMode The delegation mode to use.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader setDelegationMode(DelegationMode delegationMode) {
+		this.delegationMode = delegationMode;
+		return this;
+	}
+	
+	/**
+	 * Get a loaded module by name.
+	 * @param name The name of the module.
+	 * @return The loaded module, or null if no module of that name is loaded.
+	 */
+	public JavaModule getModule(String name) {
+		return this.modules.get(name);
+	}
+	
+	/**
+	 * 
+	 * @return An unmodifiable view of all loaded modules, by name.
+	 */
+	public Map<String, JavaModule> getModules() {
+		return Collections.unmodifiableMap(this.modules);
+	}
+	
+	/**
+	 * Remember a module as loaded. Called by the module once it has loaded.
+	 * @param module The loaded module.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader registerModule(JavaModule module) {
+		this.modules.put(module.getName(), module);
+		return this;
+	}
+	
+	/**
+	 * Forget a loaded module. Called by the module once it has unloaded.
+	 * @param module The unloaded module.
+	 * @return The same JarLoader instance.
+	 */
+	public JarLoader unregisterModule(JavaModule module) {
+		this.modules.remove(module.getName(), module);
+		return this;
+	}
+	
+	/**
+	 * Get a module waiting to be activated by name.
+	 * @param name The name of the module.
+	 * @return The lazily loaded module that hasn't been activated yet, or null.
+	 */
+	public JavaModule getLazyModule(String name) {
+		return this.lazyModules.get(name);
+	}
+	
+	/**
+	 * Remember a module as owning packages, without loading it. The module is activated the first time a saved loader searches other loaders for a class in one of its packages.
+	 * Called by the module when it's loaded lazily.
+	 * @param module The lazily loaded module.
+	 * @param packageNames The packages of the module's classes.
+	 * @return The same JarLoader instance.
+	 */
+	public synchronized JarLoader registerLazyModule(JavaModule module, Collection<String> packageNames) {
+		this.lazyModules.put(module.getName(), module);
+		packageNames.forEach(packageName -> this.lazyPackages.putIfAbsent(packageName, module));
+		this.resolutionCache.invalidate();
+		return this;
+	}
+	
+	/**
+	 * Forget a lazily loaded module and its packages. Called by the module when it's unloaded before being activated.
+	 * @param module The lazily loaded module.
+	 * @return True if the module was waiting to be activated.
+	 */
+	public synchronized boolean unregisterLazyModule(JavaModule module) {
+		if(!this.lazyModules.remove(module.getName(), module))
+			return false;
+		this.lazyPackages.values().removeIf(owner -> owner == module);
+		return true;
+	}
+	
+	/**
+	 * Claim a lazily loaded module for activation. Its packages stay registered until {@link #unregisterLazyPackages(JavaModule)}, so lookups of its classes from other threads wait for the activation.
+	 * Called by the module when it's activated.
+	 * @param module The lazily loaded module.
+	 * @return True if the module was waiting to be activated.
+	 */
+	public synchronized boolean claimLazyModule(JavaModule module) {
+		return this.lazyModules.remove(module.getName(), module);
+	}
+	
+	/**
+	 * Forget the packages of a lazily loaded module. Called by the module once its activation finished.
+	 * @param module The lazily loaded module.
+	 * @return The same JarLoader instance.
+	 */
+	public synchronized JarLoader unregisterLazyPackages(JavaModule module) {
+		this.lazyPackages.values().removeIf(owner -> owner == module);
+		return this;
 	}
 	
 	/**
 	 * Get all the saved loaders that try to load classes off each other.
-	 * @return
+	 * @return An immutable snapshot of the saved loaders, safe to iterate while loaders are integrated or isolated.
 	 */
 	public Set<JarClassLoader> getLoaders() {
+		return this.loaders.getSnapshot().loaders();
+	}
+	
+	/**
+	 * Get the versioned registry of saved loaders.
+	 * @return The registry of saved loaders.
+	 */
+	public LoaderRegistry getRegistry() {
 		return this.loaders;
 	}
 	
@@ -133,13 +615,61 @@ public abstract class JarLoader {
 		return !loaders.contains(classLoader);
 	}
 	
+	/**
+	 * Get the saved loaders that may be able to load the given class, using the package index instead of every saved loader.
+	 * @param className The binary name of the class to look for.
+	 * If a lazily loaded module owns the package of the class, it's activated first.
+	 * @return The saved loaders owning the package of the class, followed by any saved loaders whose URLs could not be indexed.
+	 */
+	public Collection<JarClassLoader> getLoaders(String className) {
+		String packageName = JarClassLoader.getPackageName(className);
+		if(!lazyPackages.isEmpty()) {
+			JavaModule lazy = lazyPackages.get(packageName);
+			if(lazy != null) {
+				try {
+					lazy.activate();
+				} catch (ModuleLoadException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		Set<JarClassLoader> owners = packages.get(packageName);
+		if(unindexed.isEmpty())
+			return owners == null ? Collections.emptySet() : owners;
+		if(owners == null)
+			return unindexed;
+		Set<JarClassLoader> candidates = new LinkedHashSet<>(owners);
+		candidates.addAll(unindexed);
+		return candidates;
+	}
+	
 	/**
 	 * Isolate a jar class loader from the rest of the loaders.
 	 * @param classLoader The jar class loader to isolate.
 	 * @return The same JarLoader instance.
 	 */
 	public JarLoader isolate(JarClassLoader classLoader) {
-		loaders.remove(classLoader);
+		return isolateAll(Collections.singleton(classLoader));
+	}
+	
+	/**
+	 * Isolate many jar class loaders from the rest of the loaders at once, publishing a single new snapshot of the saved loaders.
+	 * @param classLoaders The jar class loaders to isolate.
+	 * @return The same JarLoader instance.
+	 */
+	public synchronized JarLoader isolateAll(Collection<JarClassLoader> classLoaders) {
+		List<JarClassLoader> removed = loaders.removeAll(classLoaders);
+		if(removed.isEmpty())
+			return this;
+		unindexed.removeAll(removed);
+		for(JarClassLoader classLoader : removed) {
+			for(String packageName : classLoader.getPackageNames())
+				packages.computeIfPresent(packageName, (name, owners) -> {
+					owners.remove(classLoader);
+					return owners.isEmpty() ? null : owners;
+				});
+		}
+		resolutionCache.invalidate();
 		return this;
 	}
 	
@@ -149,7 +679,43 @@ public abstract class JarLoader {
 	 * @return The same JarLoader instance.
 	 */
 	public JarLoader integrate(JarClassLoader classLoader) {
-		loaders.add(classLoader);
+		return integrateAll(Collections.singleton(classLoader));
+	}
+	
+	/**
+	 * Integrate many jar class loaders with the rest of the class loaders at once, publishing a single new snapshot of the saved loaders.
+	 * @param classLoaders The jar class loaders to integrate.
+	 * @return The same JarLoader instance.
+	 */
+	public synchronized JarLoader integrateAll(Collection<JarClassLoader> classLoaders) {
+		List<JarClassLoader> added = loaders.addAll(classLoaders);
+		if(added.isEmpty())
+			return this;
+		for(JarClassLoader classLoader : added) {
+			for(String packageName : classLoader.getPackageNames())
+				packages.computeIfAbsent(packageName, name -> new CopyOnWriteArraySet<>()).add(classLoader);
+			if(!classLoader.isIndexed())
+				unindexed.add(classLoader);
+		}
+		resolutionCache.invalidate();
+		return this;
+	}
+	
+	/**
+	 * Add packages owned by a saved jar class loader to the package index. Called by the loader whenever it gains a new URL.
+	 * @param classLoader The jar class loader owning the packages.
+	 * @param packageNames The package names contained in the newly added URL.
+	 * @param unindexable True if the newly added URL could not be indexed, and the loader must always be searched.
+	 * @return The same JarLoader instance.
+	 */
+	public synchronized JarLoader index(JarClassLoader classLoader, Collection<String> packageNames, boolean unindexable) {
+		if(!loaders.contains(classLoader))
+			return this;
+		for(String packageName : packageNames)
+			packages.computeIfAbsent(packageName, name -> new CopyOnWriteArraySet<>()).add(classLoader);
+		if(unindexable)
+			unindexed.add(classLoader);
+		resolutionCache.invalidate();
 		return this;
 	}
 	
@@ -165,11 +731,14 @@ public abstract class JarLoader {
 	
 	/**
 	 * Creates a new URLClassLoader with the abiliy to add URLs.
+	 * If shared loaders are enabled, the shared loader of the jar contents is returned instead. See {@link #acquireSharedLoader(File, boolean)}.
 	 * @param jarFile The default file to add to the URL loader.
 	 * @param save Whether to save this loader to a list of other loaders to look for classes in. (If loading multiple jars that need to access classes of eachother)
 	 * @return A new URLClassLoader with the abiliy to add URLs.
 	 */
 	public JarClassLoader newLoader(File jarFile, boolean integrate) throws InvalidJarFileException, MalformedURLException, IOException {
+		if(this.sharedLoaders)
+			return acquireSharedLoader(jarFile, integrate);
 		JarClassLoader loader = new JarClassLoader(this);
 		try {
 			loader.addFile(jarFile);
@@ -180,6 +749,51 @@ public abstract class JarLoader {
 		return integrate ? loader.integrate() : loader;
 	}
 	
+	/**
+	 * Creates a new URLClassLoader loading classes and resources straight from a jar held in memory, without writing it to disk.
+	 * @param jar The bytes of the jar. Pass a direct buffer to keep the jar off heap. The buffer must not be changed while the loader is in use.
+	 * @param integrate Whether to save this loader to a list of other loaders to look for classes in. (If loading multiple jars that need to access classes of eachother)
+	 * @return A new URLClassLoader with the abiliy to add URLs.
+	 * @throws IOException If the bytes aren't a valid jar, or the jar is signed.
+	 */
+	public JarClassLoader newLoader(ByteBuffer jar, boolean integrate) throws IOException {
+		JarClassLoader loader = new JarClassLoader(this);
+		try {
+			loader.addJar("memory.jar", jar);
+		} catch (IOException e) {
+			loader.close();
+			throw e;
+		}
+		return integrate ? loader.integrate() : loader;
+	}
+	
+	/**
+	 * The same as {@link #newLoader(ByteBuffer, boolean)}, reading the jar from the given array without copying it.
+	 * @param jar The bytes of the jar. The array must not be changed while the loader is in use.
+	 * @param integrate Whether to save this loader to a list of other loaders to look for classes in. (If loading multiple jars that need to access classes of eachother)
+	 * @return A new URLClassLoader with the abiliy to add URLs.
+	 * @throws IOException If the bytes aren't a valid jar, or the jar is signed.
+	 */
+	public JarClassLoader newLoader(byte[] jar, boolean integrate) throws IOException {
+		return newLoader(jar, false, integrate);
+	}
+	
+	/**
+	 * The same as {@link #newLoader(ByteBuffer, boolean)}, reading the jar from the given array.
+	 * @param jar The bytes of the jar.
+	 * @param offHeap Whether to copy the jar off heap, so the array can be collected and the jar doesn't weigh on the heap. Otherwise the array is used as is, and must not be changed while the loader is in use.
+	 * @param integrate Whether to save this loader to a list of other loaders to look for classes in. (If loading multiple jars that need to access classes of eachother)
+	 * @return A new URLClassLoader with the abiliy to add URLs.
+	 * @throws IOException If the bytes aren't a valid jar, or the jar is signed.
+	 */
+	public JarClassLoader newLoader(byte[] jar, boolean offHeap, boolean integrate) throws IOException {
+		if(!offHeap)
+			return newLoader(ByteBuffer.wrap(jar), integrate);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(jar.length).put(jar);
+		((Buffer) buffer).flip();
+		return newLoader(buffer, integrate);
+	}
+	
 	/**
 	 * Create a new instance of a Jar object that contains the new class loader used, and the sp[ecified class loaded.
 	 * @param jarFile The jar file to load.
@@ -193,8 +807,7 @@ public abstract class JarLoader {
 		jarFile = new File(jarFile.getAbsolutePath());
 		if(!jarFile.isFile() || jarFile.getName().equals(".jar") || !jarFile.getName().endsWith(".jar"))
 			throw new InvalidJarFileException(jarFile);
-		URL fileUrl = jarFile.toURI().toURL();
-		JarClassLoader loader = new JarClassLoader(this, new URL[] {fileUrl});
+		JarClassLoader loader = this.sharedLoaders ? acquireSharedLoader(jarFile, false) : new JarClassLoader(this, new URL[] {jarFile.toURI().toURL()});
 		Class<?> clazz = null;
 		try {
 			clazz = loader.loadClass(classToLoad);
@@ -209,13 +822,11 @@ public abstract class JarLoader {
 	
 	/**
 	 * This is a complete dependency system. Give this method a list of files to load. It will make a new class loader for each jar, load the classes based off the module.json resource file (MUST contain "name", "main", and "version" string values, with optional "depends" and "softdepends" json string array values that either requires other modules to be present to initialize, or isn't required to start.), and map the dependencies before initializing them.
-	 * @param jarFiles The files to initialize as modules. This method filters out files that aren't jar files.
+	 * @param jarFiles The files to initialize as modules, read in parallel. This method filters out files that aren't jar files.
 	 * @return An object containing the mapped (Duplicates removed, Chained/Self-Referenced dependencies removed, Modules with required dependencies missing removed, and Mapped in order of execution.) modules ready for initialization.
 	 */
 	public DependencyMapper loadModules(List<File> jarFiles) {
-		return new DependencyMapper(new LinkedList<>(jarFiles.stream()
-				.map(file -> new File(file.getAbsolutePath()))
-				.filter(file -> file.isFile() && !file.getName().equals(".jar") && file.getName().endsWith(".jar"))
+		return new DependencyMapper(new LinkedList<>(toJarFiles(jarFiles).parallelStream()
 				.map(file -> {
 					try {
 						return new JavaModule(this, file);
@@ -227,4 +838,210 @@ public abstract class JarLoader {
 				.filter(module -> module != null)
 				.collect(Collectors.toList())));
 	}
+	
+	/**
+	 * The same as {@link #loadModules(List)}, but reusing the module.json values and mapped order stored in an index file for jars that haven't changed since the last start. The index file is updated afterwards.
+	 * @param jarFiles The files to initialize as modules, read in parallel. This method filters out files that aren't jar files.
+	 * @param indexFile The index file to read and update.
+	 * @return An object containing the mapped modules ready for initialization.
+	 */
+	public DependencyMapper loadModules(List<File> jarFiles, File indexFile) {
+		return loadModules(jarFiles, ModuleIndex.load(indexFile, false));
+	}
+	
+	/**
+	 * The same as {@link #loadModules(List)}, but reusing the module.json values and mapped order stored in an index for jars that haven't changed since the last start. The index is saved afterwards.
+	 * @param jarFiles The files to initialize as modules, read in parallel. This method filters out files that aren't jar files.
+	 * @param index The index to read and update.
+	 * @return An object containing the mapped modules ready for initialization.
+	 */
+	public DependencyMapper loadModules(List<File> jarFiles, ModuleIndex index) {
+		List<File> files = toJarFiles(jarFiles);
+		List<JavaModule> modules = files.parallelStream()
+				.map(file -> {
+					try {
+						return index.getModule(this, file);
+					} catch (ModuleLoadException e1) {
+						e1.printStackTrace();
+					}
+					return null;
+				})
+				.filter(module -> module != null)
+				.collect(Collectors.toList());
+		index.retain(files);
+		DependencyMapper mapper = index.map(modules);
+		try {
+			index.save();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return mapper;
+	}
+	
+	/*
+	 * Make the files absolute, and filter out files that aren't jar files.
+	 */
+	private static List<File> toJarFiles(List<File> jarFiles) {
+		return jarFiles.stream()
+				.map(file -> new File(file.getAbsolutePath()))
+				.filter(file -> file.isFile() && !file.getName().equals(".jar") && file.getName().endsWith(".jar"))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Load mapped modules in parallel. Each module starts as soon as the modules it depends on have loaded, so independent modules load at the same time, level by level.
+	 * If a module fails to load, only the modules requiring it, directly or indirectly, are skipped. Modules that only soft depend on it still load.
+	 * @param mapper The mapped modules to load.
+	 * @param executor The executor to load modules on. See {@link #newModuleExecutor(int, boolean)}.
+	 * @return A future for every mapped module, in order of execution, completing once the module has loaded, or exceptionally if it or a required dependency failed.
+	 */
+	public Map<JavaModule, CompletableFuture<JavaModule>> loadMappedModules(DependencyMapper mapper, Executor executor) {
+		return loadMappedModules(mapper, executor, 0, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Load mapped modules in parallel on a new pool of the given size, shut down once every module has finished. See {@link #loadMappedModules(DependencyMapper, Executor, long, TimeUnit)}.
+	 * @param mapper The mapped modules to load.
+	 * @param parallelism The maximum amount of modules to load at the same time.
+	 * @param timeout The maximum time to wait for each module to load, once its dependencies have loaded, or 0 to wait forever.
+	 * @param unit The unit of the timeout.
+	 * @return A future for every mapped module, in order of execution.
+	 */
+	public Map<JavaModule, CompletableFuture<JavaModule>> loadMappedModules(DependencyMapper mapper, int parallelism, long timeout, TimeUnit unit) {
+		ExecutorService executor = newModuleExecutor(parallelism, false);
+		Map<JavaModule, CompletableFuture<JavaModule>> futures = loadMappedModules(mapper, executor, timeout, unit);
+		CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()])).whenComplete((ignored, throwable) -> executor.shutdown());
+		return futures;
+	}
+	
+	/**
+	 * Load mapped modules in parallel, with a timeout for each module. Each module starts as soon as the modules it depends on have loaded, and its onLoad consumer runs off the loading path. See {@link JavaModule#loadAsync(Executor, long, TimeUnit)}.
+	 * If a module fails to load or times out, only the modules requiring it, directly or indirectly, are skipped. Modules that only soft depend on it still load.
+	 * @param mapper The mapped modules to load.
+	 * @param executor The executor to load modules on. See {@link #newModuleExecutor(int, boolean)}.
+	 * @param timeout The maximum time to wait for each module to load, once its dependencies have loaded, or 0 to wait forever.
+	 * @param unit The unit of the timeout.
+	 * @return A future for every mapped module, in order of execution, completing once the module has loaded, or exceptionally if it or a required dependency failed.
+	 */
+	public Map<JavaModule, CompletableFuture<JavaModule>> loadMappedModules(DependencyMapper mapper, Executor executor, long timeout, TimeUnit unit) {
+		Map<String, CompletableFuture<JavaModule>> byName = new HashMap<>();
+		Map<JavaModule, CompletableFuture<JavaModule>> futures = new LinkedHashMap<>();
+		for(List<JavaModule> level : mapper.getLevels()) {
+			for(JavaModule module : level) {
+				List<CompletableFuture<?>> dependencies = new ArrayList<>();
+				for(String dependency : module.getDepends())
+					if(byName.containsKey(dependency))
+						dependencies.add(byName.get(dependency));
+				for(String dependency : module.getSoftDepends())
+					if(byName.containsKey(dependency))
+						dependencies.add(byName.get(dependency).handle((loaded, throwable) -> loaded));
+				CompletableFuture<JavaModule> future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[dependencies.size()])).thenCompose(ignored -> module.loadAsync(executor, timeout, unit));
+				byName.put(module.getName(), future);
+				futures.put(module, future);
+			}
+		}
+		return futures;
+	}
+	
+	/**
+	 * Unload every loaded module in parallel on a new pool of the given size, shut down once done. See {@link #unloadAll(Executor, long, long, TimeUnit)}.
+	 * @param parallelism The maximum amount of modules to unload at the same time.
+	 * @param moduleTimeout The maximum time to wait for each module to unload, once its dependents have unloaded, or 0 to wait forever.
+	 * @param globalTimeout The maximum time to wait for every module to unload, or 0 to wait forever.
+	 * @param unit The unit of both timeouts.
+	 * @return A report of the modules that unloaded, failed, or overran a deadline.
+	 */
+	public UnloadReport unloadAll(int parallelism, long moduleTimeout, long globalTimeout, TimeUnit unit) {
+		ExecutorService executor = newModuleExecutor(parallelism, false);
+		try {
+			return unloadAll(executor, moduleTimeout, globalTimeout, unit);
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Unload every loaded module in reverse dependency order, blocking until done or until the global deadline passes.
+	 * A module starts unloading as soon as every loaded module depending on it, or soft depending on it, has unloaded, failed, or overran its deadline, so independent modules unload at the same time.
+	 * Lazily loaded modules that were never activated are forgotten first.
+	 * @param executor The executor to unload modules on.
+	 * @param moduleTimeout The maximum time to wait for each module to unload, once its dependents have unloaded, or 0 to wait forever.
+	 * @param globalTimeout The maximum time to wait for every module to unload, or 0 to wait forever.
+	 * @param unit The unit of both timeouts.
+	 * @return A report of the modules that unloaded, failed, or overran a deadline.
+	 */
+	public UnloadReport unloadAll(Executor executor, long moduleTimeout, long globalTimeout, TimeUnit unit) {
+		long start = System.nanoTime();
+		for(JavaModule module : lazyModules.values()) {
+			try {
+				module.unload();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		List<JavaModule> loaded = new ArrayList<>(this.modules.values());
+		Map<String, JavaModule> byName = new HashMap<>();
+		loaded.forEach(module -> byName.put(module.getName(), module));
+		Map<JavaModule, List<JavaModule>> dependents = new HashMap<>();
+		for(JavaModule module : loaded) {
+			for(String[] names : new String[][] {module.getDepends(), module.getSoftDepends()}) {
+				for(String name : names) {
+					JavaModule dependency = byName.get(name);
+					if(dependency != null && dependency != module)
+						dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(module);
+				}
+			}
+		}
+		//Every module gets its future up front, so dependents can be chained in any order.
+		Map<JavaModule, CompletableFuture<JavaModule>> futures = new LinkedHashMap<>();
+		loaded.forEach(module -> futures.put(module, new CompletableFuture<>()));
+		Queue<JavaModule> unloaded = new ConcurrentLinkedQueue<>();
+		for(JavaModule module : loaded) {
+			List<CompletableFuture<?>> waiting = new ArrayList<>();
+			for(JavaModule dependent : dependents.getOrDefault(module, Collections.emptyList()))
+				waiting.add(futures.get(dependent).handle((result, throwable) -> result));
+			CompletableFuture<JavaModule> future = futures.get(module);
+			CompletableFuture.allOf(waiting.toArray(new CompletableFuture<?>[waiting.size()]))
+					.thenCompose(ignored -> module.unloadAsync(executor, moduleTimeout, unit))
+					.whenComplete((result, throwable) -> {
+						if(throwable == null) {
+							unloaded.add(module);
+							future.complete(module);
+						} else {
+							future.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+						}
+					});
+		}
+		CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()]));
+		try {
+			if(globalTimeout > 0)
+				all.get(globalTimeout, unit);
+			else
+				all.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			//Reported per module below.
+		}
+		UnloadReport report = new UnloadReport();
+		report.getUnloaded().addAll(unloaded);
+		futures.forEach((module, future) -> {
+			if(!future.isDone()) {
+				report.getUnfinished().add(module);
+				return;
+			}
+			try {
+				future.join();
+			} catch (CompletionException | CancellationException e) {
+				Throwable cause = e.getCause() == null ? e : e.getCause();
+				if(cause instanceof TimeoutException)
+					report.getOverran().add(module);
+				else
+					report.getFailed().put(module, cause);
+			}
+		});
+		//Modules finishing between the deadline and the report are only reported once.
+		report.getUnloaded().removeAll(report.getUnfinished());
+		return report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
 }
\ No newline at end of file
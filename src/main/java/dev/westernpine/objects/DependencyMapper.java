@@ -1,14 +1,17 @@
 package dev.westernpine.objects;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import dev.westernpine.objects.module.JavaModule;
 
@@ -19,34 +22,172 @@ import dev.westernpine.objects.module.JavaModule;
  */
 public class DependencyMapper {
 	
-	private final Comparator<JavaModule> comparator = new Comparator<JavaModule>() {
-		@Override
-		public int compare(JavaModule o1, JavaModule o2) {
-			if(o1.isDependency(o2.getName()))
-				return 1;
-			return 0;
-		}
-	};
-	
 	private LinkedList<JavaModule> toMap;
 	
 	private Map<JavaModule, DependencyPath> removedChains;
 	
 	private Map<JavaModule, String> removedMissingDeendencies;
 	
+	private Map<String, JavaModule> mapped;
+	
+	private Map<String, Long> positions;
+	
+	private long nextPosition;
+	
+	private Map<String, Set<String>> requiredBy;
+	
+	private Map<String, JavaModule> pending;
+	
+	private Map<String, Set<String>> waiting;
+	
 	public DependencyMapper(LinkedList<JavaModule> toMap) {
 		this.toMap = toMap;
 		this.removedChains = new HashMap<>();
 		this.removedMissingDeendencies = new HashMap<>();
 		map();
+		track();
+	}
+	
+	/**
+	 * Restore the results of a previous mapping, without mapping again.
+	 * @param mappedModules The modules mapped in order of execution.
+	 * @param removedChains The modules removed for depending on themselves, with their dependency paths.
+	 * @param removedMissingDependencies The modules removed for missing a required dependency, with the missing dependency.
+	 */
+	public DependencyMapper(LinkedList<JavaModule> mappedModules, Map<JavaModule, DependencyPath> removedChains, Map<JavaModule, String> removedMissingDependencies) {
+		this.toMap = mappedModules;
+		this.removedChains = removedChains;
+		this.removedMissingDeendencies = removedMissingDependencies;
+		track();
 	}
 	
 	/**
 	 * 
-	 * @return The LinkedList of dependencies mapped in order of execution.
+	 * @return A new LinkedList of the dependencies mapped in order of execution. It is a copy, so changing it doesn't change this mapper, and later changes to this mapper don't show in it.
+	 */
+	public synchronized LinkedList<JavaModule> getMappedModules() {
+		return new LinkedList<>(this.mapped.values());
+	}
+	
+	/**
+	 * Check if a module is mapped.
+	 * @param name The name of the module.
+	 * @return The mapped module of that name, or null if there is none.
+	 */
+	public synchronized JavaModule getMappedModule(String name) {
+		return this.mapped.get(name);
+	}
+	
+	/**
+	 * Add a module to the mapped modules. If it has all its required dependencies, it is mapped after every mapped module, followed by any waiting modules it completes the required dependencies of.
+	 * If a required dependency is missing, the module waits in {@link #getRemovedMissingDependencies()} until it is added. If it would depend on itself, it is put in {@link #getRemovedChains()} instead.
+	 * Only the modules depending on the added module are visited, not every mapped module.
+	 * @param module The module to add.
+	 * @return The modules that became loadable, in order of execution.
+	 * @throws IllegalArgumentException If a module of the same name is already mapped or waiting.
 	 */
-	public LinkedList<JavaModule> getMappedModules() {
-		return this.toMap;
+	public synchronized Delta add(JavaModule module) {
+		String name = module.getName();
+		if(this.mapped.containsKey(name) || this.pending.containsKey(name))
+			throw new IllegalArgumentException("A module named " + name + " is already mapped!");
+		Delta delta = new Delta();
+		DependencyPath chain = findChain(module);
+		if(chain != null) {
+			this.removedChains.put(module, chain);
+			return delta;
+		}
+		wait(module);
+		Deque<String> completed = new ArrayDeque<>();
+		if(this.mapped.containsKey(name)) {
+			delta.loadable.add(module);
+			completed.add(name);
+		}
+		while(!completed.isEmpty()) {
+			Set<String> waiters = this.waiting.remove(completed.poll());
+			if(waiters == null)
+				continue;
+			for(String waiter : waiters) {
+				JavaModule waiting = this.pending.remove(waiter);
+				if(waiting == null)
+					continue;
+				this.removedMissingDeendencies.remove(waiting);
+				wait(waiting);
+				if(this.mapped.containsKey(waiter)) {
+					delta.loadable.add(waiting);
+					completed.add(waiter);
+				}
+			}
+		}
+		delta.position = this.mapped.size() - delta.loadable.size();
+		return delta;
+	}
+	
+	/**
+	 * Remove a module from the mapped modules. Every mapped module requiring it, directly or indirectly, is unmapped too, and waits in {@link #getRemovedMissingDependencies()} until the module is added back.
+	 * Only the modules requiring the removed module are visited, not every mapped module.
+	 * @param name The name of the module to remove.
+	 * @return The modules that must be unloaded, in order of unloading (dependents first), ending with the removed module.
+	 */
+	public synchronized Delta remove(String name) {
+		Delta delta = new Delta();
+		this.removedChains.keySet().removeIf(module -> module.getName().equals(name));
+		JavaModule waitingModule = this.pending.remove(name);
+		if(waitingModule != null) {
+			String dependency = this.removedMissingDeendencies.remove(waitingModule);
+			Set<String> waiters = this.waiting.get(dependency);
+			if(waiters != null)
+				waiters.remove(name);
+			return delta;
+		}
+		JavaModule module = this.mapped.get(name);
+		if(module == null)
+			return delta;
+		List<JavaModule> affected = new ArrayList<>();
+		Map<String, String> missing = new HashMap<>();
+		Deque<String> removed = new ArrayDeque<>();
+		removed.add(name);
+		affected.add(module);
+		while(!removed.isEmpty()) {
+			String dependency = removed.poll();
+			for(String dependent : this.requiredBy.getOrDefault(dependency, Collections.emptySet())) {
+				if(!missing.containsKey(dependent) && !dependent.equals(name)) {
+					missing.put(dependent, dependency);
+					affected.add(this.mapped.get(dependent));
+					removed.add(dependent);
+				}
+			}
+		}
+		affected.sort((o1, o2) -> Long.compare(this.positions.get(o2.getName()), this.positions.get(o1.getName())));
+		for(JavaModule unmapped : affected)
+			unmap(unmapped);
+		for(JavaModule unmapped : affected) {
+			if(unmapped != module)
+				pend(unmapped, missing.get(unmapped.getName()));
+		}
+		delta.unloadable.addAll(affected);
+		return delta;
+	}
+	
+	/**
+	 * Group the mapped modules by dependency depth. Modules in the same level don't depend on each other, and only depend on modules in earlier levels, so each level can be initialized in parallel.
+	 * @return The levels of mapped modules, in order of execution.
+	 */
+	public List<List<JavaModule>> getLevels() {
+		Map<String, Integer> depths = new HashMap<>();
+		List<List<JavaModule>> levels = new ArrayList<>();
+		for(JavaModule module : getMappedModules()) {
+			int depth = 0;
+			for(String dependency : module.getAllDependencies()) {
+				Integer dependencyDepth = depths.get(dependency);
+				if(dependencyDepth != null)
+					depth = Math.max(depth, dependencyDepth + 1);
+			}
+			depths.put(module.getName(), depth);
+			if(levels.size() == depth)
+				levels.add(new ArrayList<>());
+			levels.get(depth).add(module);
+		}
+		return levels;
 	}
 	
 	/**
@@ -65,6 +206,43 @@ public class DependencyMapper {
 		return this.removedMissingDeendencies;
 	}
 	
+	/**
+	 * The modules affected by adding or removing a module.
+	 */
+	public static class Delta {
+		
+		private LinkedList<JavaModule> loadable = new LinkedList<>();
+		
+		private LinkedList<JavaModule> unloadable = new LinkedList<>();
+		
+		private int position = -1;
+		
+		/**
+		 * 
+		 * @return The modules that became loadable, in order of execution. They were mapped after every other mapped module, starting at {@link #getPosition()}.
+		 */
+		public LinkedList<JavaModule> getLoadable() {
+			return this.loadable;
+		}
+		
+		/**
+		 * 
+		 * @return The modules that must be unloaded, in order of unloading.
+		 */
+		public LinkedList<JavaModule> getUnloadable() {
+			return this.unloadable;
+		}
+		
+		/**
+		 * 
+		 * @return The index in the mapped modules of the first loadable module, or -1 if nothing became loadable.
+		 */
+		public int getPosition() {
+			return this.loadable.isEmpty() ? -1 : this.position;
+		}
+		
+	}
+	
 	public static class DependencyPath {
 		
 		private DependencyPath parent;
@@ -113,103 +291,305 @@ public class DependencyMapper {
 		
 	}
 	
+	/*
+	 * Every step works off of a name -> module index and integer adjacency lists, so mapping is linear in the amount of modules and dependencies.
+	 */
 	private DependencyMapper map() {
 		
-		//remove duplicate dependencies			
-		toMap.stream().filter(module -> toMap.stream().filter(mod -> mod.getName().equals(module.getName())).count() > 1).map(JavaModule::getName).collect(Collectors.toList()).forEach(name -> toMap.removeIf(module -> module.getName().equals(name)));
-		
-		//Remove chained dependencies.
-		Iterator<JavaModule> it = toMap.iterator();
-		while(it.hasNext()) {
-			JavaModule module = it.next();
-			DependencyPath dpath = mapDuplicates(module, new DependencyPath(null, module.getName()));
-			if(dpath.containsSelf()) {
-				it.remove();
-				removedChains.put(module, dpath);
+		//Remove duplicate dependencies.
+		Map<String, Integer> nameCounts = new HashMap<>();
+		toMap.forEach(module -> nameCounts.merge(module.getName(), 1, Integer::sum));
+		toMap.removeIf(module -> nameCounts.get(module.getName()) > 1);
+		
+		int size = toMap.size();
+		JavaModule[] modules = toMap.toArray(new JavaModule[size]);
+		Map<String, Integer> index = new HashMap<>();
+		for(int i = 0; i < size; i++)
+			index.put(modules[i].getName(), i);
+		int[][] edges = new int[size][];
+		for(int i = 0; i < size; i++)
+			edges[i] = modules[i].getAllDependencies().stream().map(index::get).filter(dependency -> dependency != null).distinct().mapToInt(Integer::intValue).toArray();
+		
+		//Remove chained dependencies: every module in a cycle, and every module depending on one, directly or indirectly.
+		int[] components = findComponents(edges);
+		int[] componentSizes = new int[size];
+		for(int component : components)
+			componentSizes[component]++;
+		int[][] reverseEdges = reverse(edges, size);
+		int[] next = new int[size];
+		boolean[] removed = new boolean[size];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for(int i = 0; i < size; i++) {
+			if(componentSizes[components[i]] > 1 || contains(edges[i], i)) {
+				removed[i] = true;
+				next[i] = -1;
+				queue.add(i);
+			}
+		}
+		while(!queue.isEmpty()) {
+			int dependency = queue.poll();
+			for(int dependent : reverseEdges[dependency]) {
+				if(!removed[dependent]) {
+					removed[dependent] = true;
+					next[dependent] = dependency;
+					queue.add(dependent);
+				}
+			}
+		}
+		Map<Integer, int[]> cycles = new HashMap<>();
+		for(int i = 0; i < size; i++) {
+			if(!removed[i])
+				continue;
+			DependencyPath dpath = new DependencyPath(null, modules[i].getName());
+			int at = i;
+			while(next[at] != -1) {
+				at = next[at];
+				dpath = new DependencyPath(dpath, modules[at].getName());
 			}
+			for(int member : cycles.computeIfAbsent(at, start -> findCycle(edges, components, start)))
+				dpath = new DependencyPath(dpath, modules[member].getName());
+			removedChains.put(modules[i], dpath);
 		}
 		
-		//Remove missing dependencies.
-		while(true) {
-			boolean removed = false;
-			Iterator<JavaModule> it1 = toMap.iterator();
-			A: while(it1.hasNext()) {
-				JavaModule module = it1.next();
-				for(String dependency : module.getDepends()) {
-					if(!toMap.stream().map(JavaModule::getName).collect(Collectors.toList()).contains(dependency)) { //done here so we can update dependencies every time.
-						it1.remove();
-						removed = true;
-						removedMissingDeendencies.put(module, dependency);
-						break A;
+		//Remove missing dependencies, and everything that required them.
+		int[][] required = new int[size][];
+		for(int i = 0; i < size; i++)
+			required[i] = Arrays.stream(modules[i].getDepends()).map(index::get).filter(dependency -> dependency != null).distinct().mapToInt(Integer::intValue).toArray();
+		int[][] requiredBy = reverse(required, size);
+		for(int i = 0; i < size; i++) {
+			if(removed[i])
+				continue;
+			for(String dependency : modules[i].getDepends()) {
+				Integer dependencyIndex = index.get(dependency);
+				if(dependencyIndex == null || removed[dependencyIndex]) {
+					removed[i] = true;
+					removedMissingDeendencies.put(modules[i], dependency);
+					queue.add(i);
+					break;
+				}
+			}
+			while(!queue.isEmpty()) {
+				int dependency = queue.poll();
+				for(int dependent : requiredBy[dependency]) {
+					if(!removed[dependent]) {
+						removed[dependent] = true;
+						removedMissingDeendencies.put(modules[dependent], modules[dependency].getName());
+						queue.add(dependent);
 					}
 				}
 			}
-			if(removed)
-				continue;
-			break;
 		}
 		
 		//Order dependencies.
-		return map0();
+		int[] inDegree = new int[size];
+		for(int i = 0; i < size; i++) {
+			if(removed[i])
+				continue;
+			for(int dependency : edges[i]) {
+				if(!removed[dependency])
+					inDegree[i]++;
+			}
+		}
+		for(int i = 0; i < size; i++) {
+			if(!removed[i] && inDegree[i] == 0)
+				queue.add(i);
+		}
+		toMap.clear();
+		while(!queue.isEmpty()) {
+			int dependency = queue.poll();
+			toMap.add(modules[dependency]);
+			for(int dependent : reverseEdges[dependency]) {
+				if(!removed[dependent] && --inDegree[dependent] == 0)
+					queue.add(dependent);
+			}
+		}
+		return this;
+	}
+	
+	/*
+	 * Build the indexes used to add and remove modules, from the mapped modules and the modules missing dependencies.
+	 */
+	private void track() {
+		this.mapped = new LinkedHashMap<>();
+		this.positions = new HashMap<>();
+		this.requiredBy = new HashMap<>();
+		this.pending = new HashMap<>();
+		this.waiting = new HashMap<>();
+		for(JavaModule module : toMap)
+			map(module);
+		this.removedMissingDeendencies.forEach((module, dependency) -> {
+			this.pending.put(module.getName(), module);
+			this.waiting.computeIfAbsent(dependency, key -> new LinkedHashSet<>()).add(module.getName());
+		});
+		this.toMap = null;
 	}
 	
-	private DependencyPath mapDuplicates(JavaModule module, DependencyPath dpath) {
-		List<DependencyPath> dependencies = module.getAllDependencies().stream().map(dependency -> new DependencyPath(dpath, dependency)).collect(Collectors.toList());
-		for(DependencyPath dePath : dependencies) {
-			if(dePath.containsSelf())
-				return dePath;
-			Optional<JavaModule> dependencyModule = toMap.stream().filter(mod -> mod.getName().equals(dePath.name())).findAny();
-			if(dependencyModule.isPresent()) {
-				return mapDuplicates(dependencyModule.get(), dePath);
+	/*
+	 * Map a module if all its required dependencies are mapped, or else make it wait for the first missing one.
+	 */
+	private void wait(JavaModule module) {
+		for(String dependency : module.getDepends()) {
+			if(!this.mapped.containsKey(dependency)) {
+				pend(module, dependency);
+				return;
 			}
-			
-		}
-		return dpath;
-	}
-	
-	//Recursion!
-	private DependencyMapper map0() {
-		if(toMap.size() < 2)
-			return this;
-		boolean remap = false;
-		int at = 0;
-		List<JavaModule> toRemove = new ArrayList<>();
-		
-		JavaModule addFirst = null;
-		Iterator<JavaModule> it1 = toMap.iterator();
-		A: while(it1.hasNext()) {
-			JavaModule o1 = it1.next();
-			Iterator<JavaModule> it2 = toMap.iterator();
-			int index = 0;
-			while(it2.hasNext()) {
-				JavaModule o2 = null;
-				while(index != at) {
-					index++;
-					o2 = it2.next();
-				}
-				o2 = it2.next();
-				if(o1.equals(o2))
+		}
+		map(module);
+	}
+	
+	private void pend(JavaModule module, String dependency) {
+		this.pending.put(module.getName(), module);
+		this.removedMissingDeendencies.put(module, dependency);
+		this.waiting.computeIfAbsent(dependency, key -> new LinkedHashSet<>()).add(module.getName());
+	}
+	
+	private void map(JavaModule module) {
+		this.mapped.put(module.getName(), module);
+		this.positions.put(module.getName(), this.nextPosition++);
+		for(String dependency : module.getDepends())
+			this.requiredBy.computeIfAbsent(dependency, key -> new LinkedHashSet<>()).add(module.getName());
+	}
+	
+	private void unmap(JavaModule module) {
+		this.mapped.remove(module.getName());
+		this.positions.remove(module.getName());
+		for(String dependency : module.getDepends()) {
+			Set<String> dependents = this.requiredBy.get(dependency);
+			if(dependents != null && dependents.remove(module.getName()) && dependents.isEmpty())
+				this.requiredBy.remove(dependency);
+		}
+	}
+	
+	/*
+	 * Find a path from a new module back to itself, through the mapped and waiting modules it depends on, or null if it doesn't depend on itself.
+	 */
+	private DependencyPath findChain(JavaModule module) {
+		Map<String, DependencyPath> visited = new HashMap<>();
+		Deque<DependencyPath> queue = new ArrayDeque<>();
+		queue.add(new DependencyPath(null, module.getName()));
+		while(!queue.isEmpty()) {
+			DependencyPath dpath = queue.poll();
+			JavaModule at = dpath.parent() == null ? module : known(dpath.name());
+			if(at == null)
+				continue;
+			for(String dependency : at.getAllDependencies()) {
+				DependencyPath next = new DependencyPath(dpath, dependency);
+				if(dependency.equals(module.getName()))
+					return next;
+				if(visited.putIfAbsent(dependency, next) == null)
+					queue.add(next);
+			}
+		}
+		return null;
+	}
+	
+	private JavaModule known(String name) {
+		JavaModule module = this.mapped.get(name);
+		return module == null ? this.pending.get(name) : module;
+	}
+	
+	/*
+	 * Tarjan's strongly connected components, iteratively so deep dependency chains can't overflow the stack.
+	 * Returns the component id of every module.
+	 */
+	private static int[] findComponents(int[][] edges) {
+		int size = edges.length;
+		int[] order = new int[size];
+		int[] low = new int[size];
+		int[] components = new int[size];
+		int[] edgeAt = new int[size];
+		boolean[] onStack = new boolean[size];
+		Arrays.fill(order, -1);
+		Deque<Integer> stack = new ArrayDeque<>();
+		Deque<Integer> callStack = new ArrayDeque<>();
+		int counter = 0;
+		int componentCount = 0;
+		for(int root = 0; root < size; root++) {
+			if(order[root] != -1)
+				continue;
+			callStack.push(root);
+			order[root] = low[root] = counter++;
+			stack.push(root);
+			onStack[root] = true;
+			while(!callStack.isEmpty()) {
+				int node = callStack.peek();
+				if(edgeAt[node] < edges[node].length) {
+					int dependency = edges[node][edgeAt[node]++];
+					if(order[dependency] == -1) {
+						order[dependency] = low[dependency] = counter++;
+						stack.push(dependency);
+						onStack[dependency] = true;
+						callStack.push(dependency);
+					} else if(onStack[dependency]) {
+						low[node] = Math.min(low[node], order[dependency]);
+					}
 					continue;
-				int result = comparator.compare(o1, o2);
-				switch(result) {
-				case 1:
-					toRemove.add(o2);
-					addFirst = o2;
-					remap = true;
-					break A;
-				default:
+				}
+				callStack.pop();
+				if(!callStack.isEmpty())
+					low[callStack.peek()] = Math.min(low[callStack.peek()], low[node]);
+				if(low[node] == order[node]) {
+					int member;
+					do {
+						member = stack.pop();
+						onStack[member] = false;
+						components[member] = componentCount;
+					} while(member != node);
+					componentCount++;
+				}
+			}
+		}
+		return components;
+	}
+	
+	/*
+	 * Find the shortest path from a module in a cycle back to itself, staying within its component.
+	 * Returns the modules along the path after the start, ending with the start again.
+	 */
+	private static int[] findCycle(int[][] edges, int[] components, int start) {
+		Map<Integer, Integer> parents = new LinkedHashMap<>();
+		Deque<Integer> queue = new ArrayDeque<>();
+		queue.add(start);
+		while(!queue.isEmpty()) {
+			int node = queue.poll();
+			for(int dependency : edges[node]) {
+				if(components[dependency] != components[start])
 					continue;
+				if(dependency == start) {
+					LinkedList<Integer> cycle = new LinkedList<>();
+					cycle.add(start);
+					for(int at = node; at != start; at = parents.get(at))
+						cycle.addFirst(at);
+					return cycle.stream().mapToInt(Integer::intValue).toArray();
+				}
+				if(!parents.containsKey(dependency)) {
+					parents.put(dependency, node);
+					queue.add(dependency);
 				}
 			}
-			at++;
-		}
-		if(!toRemove.isEmpty())
-			toMap.removeAll(toRemove);
-		if(addFirst != null)
-			toMap.addFirst(addFirst);
-		if(remap)
-			return map0();
-		return this;
+		}
+		return new int[0];
+	}
+	
+	private static int[][] reverse(int[][] edges, int size) {
+		int[] counts = new int[size];
+		for(int[] dependencies : edges)
+			for(int dependency : dependencies)
+				counts[dependency]++;
+		int[][] reverse = new int[size][];
+		for(int i = 0; i < size; i++)
+			reverse[i] = new int[counts[i]];
+		for(int i = 0; i < size; i++)
+			for(int dependency : edges[i])
+				reverse[dependency][--counts[dependency]] = i;
+		return reverse;
+	}
+	
+	private static boolean contains(int[] values, int value) {
+		for(int at : values)
+			if(at == value)
+				return true;
+		return false;
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package dev.westernpine.objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helpers for hashing file contents.
+ * @author WesternPine
+ * 
+ */
+public final class Digests {
+	
+	/**
+	 * The SHA-1 digest algorithm, as used by maven repository checksum files.
+	 */
+	public static final String SHA_1 = "SHA-1";
+	
+	/**
+	 * The SHA-256 digest algorithm.
+	 */
+	public static final String SHA_256 = "SHA-256";
+	
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	
+	private Digests() {}
+	
+	/**
+	 * Create a new message digest, without a checked exception for the algorithms every Java platform is required to support.
+	 * @param algorithm The digest algorithm, such as {@link #SHA_256}.
+	 * @return A new message digest.
+	 */
+	public static MessageDigest newDigest(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm, e);
+		}
+	}
+	
+	/**
+	 * Hash the contents of a file.
+	 * @param file The file to hash.
+	 * @param algorithm The digest algorithm, such as {@link #SHA_256}.
+	 * @return The lowercase hex digest of the file contents.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static String hash(File file, String algorithm) throws IOException {
+		return hash(file, new String[] {algorithm})[0];
+	}
+	
+	/**
+	 * Hash the contents of a file with several algorithms, reading the file only once.
+	 * @param file The file to hash.
+	 * @param algorithms The digest algorithms, such as {@link #SHA_1} and {@link #SHA_256}.
+	 * @return The lowercase hex digests of the file contents, in the order of the algorithms.
+	 * @throws IOException If the file can't be read.
+	 */
+	public static String[] hash(File file, String... algorithms) throws IOException {
+		MessageDigest[] digests = new MessageDigest[algorithms.length];
+		for(int i = 0; i < algorithms.length; i++)
+			digests[i] = newDigest(algorithms[i]);
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			int read;
+			while((read = in.read(buffer)) != -1) {
+				for(MessageDigest digest : digests)
+					digest.update(buffer, 0, read);
+			}
+		}
+		String[] hashes = new String[digests.length];
+		for(int i = 0; i < digests.length; i++)
+			hashes[i] = toHex(digests[i].digest());
+		return hashes;
+	}
+	
+	/**
+	 * 
+	 * @param bytes The bytes to encode.
+	 * @return The lowercase hex representation of the bytes.
+	 */
+	public static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for(int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,48 @@
+package dev.westernpine.objects;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Helpers for completable futures, for the Java 8 API lacking timeouts.
+ * @author WesternPine
+ * 
+ */
+public final class Futures {
+	
+	private Futures() {}
+	
+	/**
+	 * Fail a future with a TimeoutException if it isn't completed within the timeout. The work behind the future isn't stopped.
+	 * @param future The future to time out.
+	 * @param timeout The timeout, or 0 or less to never time out.
+	 * @param unit The unit of the timeout.
+	 * @param message The message of the TimeoutException.
+	 * @return The same future.
+	 */
+	public static <T> CompletableFuture<T> within(CompletableFuture<T> future, long timeout, TimeUnit unit, String message) {
+		if(timeout <= 0 || future.isDone())
+			return future;
+		ScheduledFuture<?> scheduled = Scheduler.INSTANCE.schedule(() -> future.completeExceptionally(new TimeoutException(message)), timeout, unit);
+		future.whenComplete((result, throwable) -> scheduled.cancel(false));
+		return future;
+	}
+	
+	/*
+	 * The single daemon thread timing out futures, started on first use.
+	 */
+	private static class Scheduler {
+		
+		private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "JarLoader-Timeout");
+			thread.setDaemon(true);
+			return thread;
+		});
+	
+	}
+
+}
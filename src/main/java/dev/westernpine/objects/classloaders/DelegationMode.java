@@ -0,0 +1,21 @@
+package dev.westernpine.objects.classloaders;
+
+/**
+ * How a saved jar class loader searches other loaders for classes it can't find itself.
+ * @author WesternPine
+ *
+ */
+public enum DelegationMode {
+	
+	/**
+	 * Search every saved loader of the JarLoader.
+	 */
+	GLOBAL,
+	
+	/**
+	 * Search only the loaders of the modules a module depends on, soft or not, transitively and in order of initialization.
+	 * Loaders that aren't module loaders still search every saved loader.
+	 */
+	DEPENDENCIES;
+
+}
@@ -0,0 +1,70 @@
+package dev.westernpine.objects.classloaders;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.security.CodeSource;
+import java.util.Set;
+import java.util.jar.Manifest;
+
+/**
+ * A jar whose entry names are indexed in memory, so a JarClassLoader can define classes and find resources straight from it, instead of through the URLClassLoader class path.
+ * @author WesternPine
+ * 
+ */
+public interface IndexedJar extends Closeable {
+	
+	/**
+	 * 
+	 * @return The URL this jar was read from.
+	 */
+	public URL getURL();
+	
+	/**
+	 * 
+	 * @return The code source to define classes of this jar with.
+	 */
+	public CodeSource getCodeSource();
+	
+	/**
+	 * 
+	 * @return The manifest of this jar, or null if it has none.
+	 */
+	public Manifest getManifest();
+	
+	/**
+	 * 
+	 * @return The names of all entries in this jar.
+	 */
+	public Set<String> getNames();
+	
+	/**
+	 * Check if this jar contains an entry.
+	 * @param name The entry name, such as "a/b/C.class".
+	 * @return True if the entry exists in this jar.
+	 */
+	public boolean contains(String name);
+	
+	/**
+	 * Get the URL of an entry in this jar.
+	 * @param name The entry name.
+	 * @return A URL pointing to the entry, or null if there is no such entry.
+	 */
+	public URL getEntryURL(String name);
+	
+	/**
+	 * Read the uncompressed bytes of an entry.
+	 * @param name The entry name.
+	 * @return A read only buffer of the entry bytes, or null if there is no such entry.
+	 * @throws IOException If the entry can't be read.
+	 */
+	public ByteBuffer getBytes(String name) throws IOException;
+	
+	/**
+	 * Stop serving entries from this jar.
+	 */
+	@Override
+	public void close();
+
+}
@@ -1,35 +1,188 @@
 package dev.westernpine.objects.classloaders;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
 import dev.westernpine.JarLoader;
 import dev.westernpine.exceptions.InvalidJarFileException;
 
 public class JarClassLoader extends URLClassLoader {
-
+	
 	static {ClassLoader.registerAsParallelCapable();}
 	
+	private static final String VERSIONED_PREFIX = "META-INF/versions/";
+	
 	private JarLoader jarLoader;
 	
+	private Set<String> packages = ConcurrentHashMap.newKeySet();
+	
+	private volatile boolean indexed = true;
+	
+	volatile boolean integrated;
+	
+	private volatile List<JarClassLoader> delegates;
+	
+	private List<IndexedJar> indexedJars = new CopyOnWriteArrayList<>();
+	
+	private final String contentHash;
+	
+	private final AtomicInteger references = new AtomicInteger(1);
+	
+	private volatile Queue<String> recorded;
+	
+	private final Set<String> preloaded = ConcurrentHashMap.newKeySet();
+	
+	private static final ThreadLocal<Boolean> preloading = new ThreadLocal<>();
+	
+	//Unsafe.shouldBeInitialized tells if a preloaded class was used since, even when the JVM resolved it without asking this loader. It's gone in newer JVMs.
+	private static final Object UNSAFE;
+	
+	private static final Method SHOULD_BE_INITIALIZED;
+	
+	static {
+		Object unsafe;
+		Method shouldBeInitialized;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+			unsafeField.setAccessible(true);
+			unsafe = unsafeField.get(null);
+			shouldBeInitialized = unsafeClass.getMethod("shouldBeInitialized", Class.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			unsafe = null;
+			shouldBeInitialized = null;
+		}
+		UNSAFE = unsafe;
+		SHOULD_BE_INITIALIZED = shouldBeInitialized;
+	}
+	
+	private volatile boolean closed;
+	
 	/**
 	 * Make a new URLClassLoader that lets you add URLs of files to load classes from.
 	 * @param urls The Default URLs to use.
 	 */
 	public JarClassLoader(JarLoader jarLoader, URL[] urls) {
-		super(urls);
+		super(new URL[] {});
 		this.jarLoader = jarLoader;
+		this.contentHash = null;
+		addURLs(Arrays.asList(urls));
 	}	
 	
 	/**
 	 * Make a new URLClassLoader that lets you add URLs of files to load classes from.
 	 */
 	public JarClassLoader(JarLoader jarLoader) {
+		this(jarLoader, (String) null);
+	}
+	
+	/**
+	 * Make a new URLClassLoader shared by every user of the same jar contents. Shared loaders are handed out by {@link JarLoader#acquireSharedLoader(File, boolean)}, and only really close once every user has closed them.
+	 * @param contentHash The hash of the jar contents this loader is shared for, or null if it isn't shared.
+	 */
+	public JarClassLoader(JarLoader jarLoader, String contentHash) {
 		super(new URL[] {});
 		this.jarLoader = jarLoader;
+		this.contentHash = contentHash;
+	}
+	
+	/**
+	 * 
+	 * @return The hash of the jar contents this loader is shared for, or null if it isn't shared.
+	 */
+	public String getContentHash() {
+		return this.contentHash;
+	}
+	
+	/**
+	 * 
+	 * @return True if this loader is shared by every user of the same jar contents.
+	 */
+	public boolean isShared() {
+		return this.contentHash != null;
+	}
+	
+	/**
+	 * 
+	 * @return The amount of users that haven't closed this loader yet.
+	 */
+	public int getReferences() {
+		return Math.max(0, this.references.get());
+	}
+	
+	/**
+	 * Add a user to this loader, so one more {@link #close()} is needed to really close it.
+	 * @return False if this loader was already closed by its last user.
+	 */
+	public boolean retain() {
+		for(int count = this.references.get(); count > 0; count = this.references.get()) {
+			if(this.references.compareAndSet(count, count + 1))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * 
+	 * @return The names of all packages containing classes in the URLs added to this loader.
+	 */
+	public Set<String> getPackageNames() {
+		return Collections.unmodifiableSet(this.packages);
+	}
+	
+	/**
+	 * 
+	 * @return True if every URL added to this loader could be scanned for packages.
+	 */
+	public boolean isIndexed() {
+		return this.indexed;
+	}
+	
+	/**
+	 * 
+	 * @return The only loaders this loader searches for classes it can't find itself, or null if it searches every saved loader.
+	 */
+	public List<JarClassLoader> getDelegates() {
+		return this.delegates;
+	}
+	
+	/**
+	 * Limit the loaders this loader searches for classes it can't find itself. Only used while this loader is integrated.
+	 * @param delegates The loaders to search, in order, or null to search every saved loader.
+	 * @return This same object.
+	 */
+	public JarClassLoader setDelegates(List<JarClassLoader> delegates) {
+		this.delegates = delegates == null ? null : Collections.unmodifiableList(new ArrayList<>(delegates));
+		return this;
 	}
 	
 	/**
@@ -37,7 +190,7 @@ public class JarClassLoader extends URLClassLoader {
 	 * @return True if tis loader is isolated.
 	 */
 	public boolean isIsolated() {
-		return this.jarLoader.isIsolated(this);
+		return !this.integrated;
 	}
 	
 	/**
@@ -69,50 +222,527 @@ public class JarClassLoader extends URLClassLoader {
 		jarFile = new File(jarFile.getAbsolutePath());
 		if(!jarFile.isFile() || jarFile.getName().equals(".jar") || !jarFile.getName().endsWith(".jar"))
 			throw new InvalidJarFileException(jarFile);
-		super.addURL(jarFile.toURI().toURL());
+		addURL(jarFile.toURI().toURL());
 		return this;
 	}
 	
 	/**
 	 * Add a file URL to the urls to load classes from.
+	 * If the JarLoader uses mapped storage, jar files are memory mapped and read directly, instead of through the URLClassLoader class path. Otherwise, if the JarLoader has a jar handle pool, jar files are read through the pool.
 	 */
 	public void addURL(URL url) {
-		super.addURL(url);
+		addURLs(Collections.singletonList(url));
 	}
-
+	
+	/**
+	 * Add several URLs to load classes from, indexing their packages with the JarLoader in a single update.
+	 * @param urls The URLs to add.
+	 */
+	public void addURLs(Collection<URL> urls) {
+		Set<String> found = new HashSet<>();
+		boolean unindexable = false;
+		for(URL url : urls) {
+			IndexedJar jar = this.jarLoader.isMappedStorage() ? map(url) : pool(url);
+			Set<String> packageNames;
+			if(jar == null) {
+				super.addURL(url);
+				packageNames = scanPackages(url);
+			} else {
+				this.indexedJars.add(jar);
+				packageNames = scanPackages(jar.getNames());
+			}
+			if(packageNames == null)
+				unindexable = true;
+			else
+				found.addAll(packageNames);
+		}
+		index(found, unindexable);
+	}
+	
+	/**
+	 * Add a jar held in memory to load classes and resources from, without writing it to disk.
+	 * Multi-release jars are read as their base entries only.
+	 * @param name The name of the jar, used in the URLs of its resources. Such as "library.jar".
+	 * @param jar The bytes of the jar, on or off heap. The buffer must not be changed while this loader is in use.
+	 * @return This same object.
+	 * @throws IOException If the bytes aren't a valid jar, or the jar is signed, as signers can't be verified in memory.
+	 */
+	public JarClassLoader addJar(String name, ByteBuffer jar) throws IOException {
+		MappedJarFile mapped = MappedJarFile.wrap(name, jar);
+		requireUnsigned(mapped, name);
+		this.indexedJars.add(mapped);
+		index(scanPackages(mapped.getNames()), false);
+		return this;
+	}
+	
+	/**
+	 * Add jars stored inside a jar file, such as its "lib/" libraries, to load classes and resources from, without extracting them.
+	 * Stored (uncompressed) nested jars are read through slices of the memory mapped outer jar, and deflated ones are inflated into memory. Both are indexed once and cached by the JarLoader until the outer jar changes.
+	 * @param jarFile The jar file holding the nested jars.
+	 * @param entryNames The entry names of the nested jars, such as "lib/library.jar".
+	 * @return This same object.
+	 * @throws IOException If the jar file or a nested jar can't be read, a nested jar doesn't exist, or a nested jar is signed.
+	 */
+	public JarClassLoader addNestedJars(File jarFile, Collection<String> entryNames) throws IOException {
+		List<MappedJarFile> nested = new ArrayList<>();
+		Set<String> found = new HashSet<>();
+		try {
+			for(String entryName : entryNames) {
+				MappedJarFile mapped = this.jarLoader.openNestedJar(jarFile, entryName);
+				if(mapped == null)
+					throw new FileNotFoundException("The jar " + jarFile.getName() + " has no nested jar " + entryName + "!");
+				nested.add(mapped);
+				requireUnsigned(mapped, entryName);
+				found.addAll(scanPackages(mapped.getNames()));
+			}
+		} catch (IOException e) {
+			nested.forEach(MappedJarFile::close);
+			throw e;
+		}
+		this.indexedJars.addAll(nested);
+		index(found, false);
+		return this;
+	}
+	
+	/**
+	 * Add every jar stored directly in a directory of a jar file, such as "lib/", to load classes and resources from, without extracting them. See {@link #addNestedJars(File, Collection)}.
+	 * @param jarFile The jar file holding the nested jars.
+	 * @param directory The directory of the nested jars inside the jar file, such as "lib/".
+	 * @return This same object.
+	 * @throws IOException If the jar file or a nested jar can't be read, or a nested jar is signed.
+	 */
+	public JarClassLoader addNestedJars(File jarFile, String directory) throws IOException {
+		return addNestedJars(jarFile, this.jarLoader.getNestedJarNames(jarFile, directory));
+	}
+	
+	/**
+	 * Get the URLs of every file to load classes from, including memory mapped, pooled and in memory jars.
+	 */
+	@Override
+	public URL[] getURLs() {
+		if(this.indexedJars.isEmpty())
+			return super.getURLs();
+		List<URL> urls = new ArrayList<>();
+		this.indexedJars.forEach(jar -> urls.add(jar.getURL()));
+		Collections.addAll(urls, super.getURLs());
+		return urls.toArray(new URL[urls.size()]);
+	}
+	
+	/**
+	 * Find a resource in the indexed jars, or the URLClassLoader class path.
+	 */
+	@Override
+	public URL findResource(String name) {
+		for(IndexedJar jar : this.indexedJars) {
+			URL url = jar.getEntryURL(name);
+			if(url != null)
+				return url;
+		}
+		return super.findResource(name);
+	}
+	
+	/**
+	 * Find all resources in the indexed jars, and the URLClassLoader class path.
+	 */
+	@Override
+	public Enumeration<URL> findResources(String name) throws IOException {
+		if(this.indexedJars.isEmpty())
+			return super.findResources(name);
+		List<URL> urls = new ArrayList<>();
+		for(IndexedJar jar : this.indexedJars) {
+			URL url = jar.getEntryURL(name);
+			if(url != null)
+				urls.add(url);
+		}
+		urls.addAll(Collections.list(super.findResources(name)));
+		return Collections.enumeration(urls);
+	}
+	
 	/**
 	 * Remove this loader from the list of other loaders and close the URLClassLoader to prevent further loading of classes.
+	 * A shared loader only closes once its last user closes it.
 	 */
 	@Override
 	public void close() throws IOException {
+		if(this.contentHash != null) {
+			if(this.references.decrementAndGet() > 0)
+				return;
+			this.jarLoader.forgetSharedLoader(this);
+		}
+		this.closed = true;
 		isolate();
+		this.indexedJars.forEach(IndexedJar::close);
+		this.indexedJars.clear();
 		super.close();
 	}
 	
+	/**
+	 * Define a class from the indexed jars, or the URLClassLoader class path, recording its name if this loader is recording.
+	 * Classes defined while preloading are only recorded once they're used outside of preloading, see {@link #getRecordedClasses()}.
+	 */
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		Class<?> clazz = defineLocalClass(name);
+		Queue<String> recorded = this.recorded;
+		if(recorded != null) {
+			if(preloading.get() != null)
+				this.preloaded.add(name);
+			else
+				recorded.add(name);
+		}
+		return clazz;
+	}
+	
+	/*
+	 * Record a class defined while preloading, the first time it's requested outside of preloading.
+	 */
+	private void requested(String name) {
+		Queue<String> recorded = this.recorded;
+		if(recorded != null && preloading.get() == null && this.preloaded.remove(name))
+			recorded.add(name);
+	}
+	
+	/**
+	 * Start recording the names of the classes this loader defines, in order of definition.
+	 * @return This same object.
+	 */
+	public JarClassLoader startRecording() {
+		if(this.recorded == null)
+			this.recorded = new ConcurrentLinkedQueue<>();
+		return this;
+	}
+	
+	/**
+	 * 
+	 * @return The names of the classes defined by this loader since recording started, in order of definition, or of first request for preloaded classes, or an empty list if not recording.
+	 * Preloaded classes the JVM resolved without requesting them from this loader are added after, if they were initialized, or are a supertype of an initialized class. Preloaded classes that were never used are left out, unless the JVM can't tell if a class was initialized, in which case every preloaded class is kept.
+	 */
+	public List<String> getRecordedClasses() {
+		Queue<String> recorded = this.recorded;
+		if(recorded == null)
+			return new ArrayList<>();
+		Set<String> classes = new LinkedHashSet<>(recorded);
+		for(String name : this.preloaded) {
+			Class<?> clazz = findLoadedClass(name);
+			if(clazz != null && isInitialized(clazz))
+				addPreloadedTypes(clazz, classes);
+		}
+		return new ArrayList<>(classes);
+	}
+	
+	/*
+	 * Add the preloaded superclasses and interfaces of a preloaded class, which were linked along with it, and then the class, in order of definition.
+	 */
+	private void addPreloadedTypes(Class<?> clazz, Set<String> classes) {
+		if(clazz == null || clazz.getClassLoader() != this)
+			return;
+		addPreloadedTypes(clazz.getSuperclass(), classes);
+		for(Class<?> type : clazz.getInterfaces())
+			addPreloadedTypes(type, classes);
+		if(this.preloaded.contains(clazz.getName()))
+			classes.add(clazz.getName());
+	}
+	
+	/*
+	 * Check if a class was initialized, or true if the JVM can't tell.
+	 */
+	private static boolean isInitialized(Class<?> clazz) {
+		if(SHOULD_BE_INITIALIZED == null)
+			return true;
+		try {
+			return !((Boolean) SHOULD_BE_INITIALIZED.invoke(UNSAFE, clazz));
+		} catch (ReflectiveOperationException e) {
+			return true;
+		}
+	}
+	
+	/**
+	 * Define a class from the jars of this loader only, without initializing it, so it is already loaded once it is first used.
+	 * @param name The binary name of the class.
+	 * @return True if the class is defined by this loader. False if its class file isn't in the jars of this loader, it can't be linked, or this loader was closed.
+	 */
+	public boolean preload(String name) {
+		if(this.closed)
+			return false;
+		preloading.set(Boolean.TRUE);
+		try {
+			return findLocalClass(name) != null;
+		} catch (LinkageError e) {
+			return false;
+		} finally {
+			preloading.remove();
+		}
+	}
+	
 	/**
 	 * Try to load a class using this loader, or other saved loaders if this is a saved loader.
 	 */
 	@Override
 	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-		return loadClass0(name, resolve, !isIsolated());
+		Class<?> clazz = probeClass(name, !isIsolated());
+		//If we cant find it out of all the loaded jars, then throw exception.
+		if (clazz == null)
+			throw new ClassNotFoundException(name);
+		if (resolve)
+			resolveClass(clazz);
+		return clazz;
 	}
 	
 	/*
-	 * Try to load class from current jar specified, and from other jar loaders if checkOther is true.
+	 * Try to load class from the parent and current jar specified, and from other jar loaders if checkOther is true.
+	 * Returns null instead of throwing, so that missing classes don't cost an exception for every loader searched.
 	 */
-	private Class<?> loadClass0(String name, boolean resolve, boolean checkOther) throws ClassNotFoundException {
-		//Try and load class from super.
-		try {return super.loadClass(name, resolve);} catch (ClassNotFoundException ignored) {}
-		//Try to load class from the super of remembered class loaders.
-		if (checkOther) {
-			for (JarClassLoader loader : this.jarLoader.getLoaders()) {
-				if (loader != this) {
-					try {return loader.loadClass0(name, resolve, false);} catch (ClassNotFoundException ignored) {}
+	private Class<?> probeClass(String name, boolean checkOther) {
+		List<JarClassLoader> delegates = this.delegates;
+		ResolutionCache cache = this.jarLoader.getResolutionCache();
+		long generation = cache.getGeneration();
+		//Try and load class from the parent, then from this loader.
+		Class<?> clazz = findLoadedClass(name);
+		if (clazz != null)
+			requested(name);
+		else
+			clazz = findParentClass(name);
+		if (clazz == null)
+			clazz = findLocalClass(name);
+		if (clazz != null || !checkOther)
+			return clazz;
+		//Try to load class from the limited loaders only, if this loader has any.
+		if (delegates != null) {
+			for (JarClassLoader loader : delegates) {
+				clazz = loader.findLocalClass(name);
+				if (clazz != null)
+					return clazz;
+			}
+			return null;
+		}
+		//Try the cached results of other saved loaders, to skip searching every saved loader. Checked only after the parent and this loader, as classes can be added to those without bumping the generation.
+		JarClassLoader cached = cache.getResolved(name);
+		if (cached != null && cached != this) {
+			clazz = cached.findLocalClass(name);
+			if (clazz != null)
+				return clazz;
+		}
+		if (cache.isMissing(name))
+			return null;
+		//Try to load class from remembered class loaders. They share our parent, which was already checked.
+		for (JarClassLoader loader : this.jarLoader.getLoaders(name)) {
+			if (loader != this) {
+				clazz = loader.findLocalClass(name);
+				if (clazz != null) {
+					cache.resolved(name, loader, generation);
+					return clazz;
 				}
 			}
 		}
-		//If we cant find it out of all the loaded jars, then throw exception.
-		throw new ClassNotFoundException(name);
+		cache.missing(name, generation);
+		return null;
+	}
+	
+	/*
+	 * Try to load a class from the parent loader, or null if the parent can't find it.
+	 */
+	private Class<?> findParentClass(String name) {
+		ClassLoader parent = getParent();
+		if (parent == null)
+			return null;
+		try {return parent.loadClass(name);} catch (ClassNotFoundException ignored) {return null;}
+	}
+	
+	/*
+	 * Try to load a class from the URLs of this loader only, or null if there is no class file for it.
+	 */
+	private Class<?> findLocalClass(String name) {
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> clazz = findLoadedClass(name);
+			if (clazz != null)
+				requested(name);
+			if (clazz != null || !hasClassFile(name.replace('.', '/').concat(".class")))
+				return clazz;
+			try {return findClass(name);} catch (ClassNotFoundException ignored) {return null;}
+		}
+	}
+	
+	/*
+	 * Check if this loader has a class file, without building a resource URL for indexed jars.
+	 */
+	private boolean hasClassFile(String path) {
+		for(IndexedJar jar : this.indexedJars) {
+			if(jar.contains(path))
+				return true;
+		}
+		return super.findResource(path) != null;
+	}
+	
+	/*
+	 * Define a class from the indexed jars, or the URLClassLoader class path.
+	 */
+	private Class<?> defineLocalClass(String name) throws ClassNotFoundException {
+		String path = name.replace('.', '/').concat(".class");
+		for(IndexedJar jar : this.indexedJars) {
+			if(jar.contains(path))
+				return defineIndexedClass(name, path, jar);
+		}
+		return super.findClass(name);
+	}
+	
+	/*
+	 * Define a class straight from the bytes of an indexed jar.
+	 */
+	private Class<?> defineIndexedClass(String name, String path, IndexedJar jar) throws ClassNotFoundException {
+		try {
+			ByteBuffer bytes = jar.getBytes(path);
+			if(bytes == null)
+				throw new ClassNotFoundException(name);
+			defineIndexedPackage(getPackageName(name), jar);
+			return defineClass(name, bytes, jar.getCodeSource());
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+	
+	/*
+	 * Define the package of a class from an indexed jar, using its manifest if it has one.
+	 */
+	@SuppressWarnings("deprecation")
+	private void defineIndexedPackage(String packageName, IndexedJar jar) {
+		if(packageName.isEmpty() || getPackage(packageName) != null)
+			return;
+		try {
+			if(jar.getManifest() != null)
+				definePackage(packageName, jar.getManifest(), jar.getURL());
+			else
+				definePackage(packageName, null, null, null, null, null, null, null);
+		} catch (IllegalArgumentException ignored) {
+			//Another thread defined the package first.
+		}
+	}
+	
+	/*
+	 * Refuse signed jars read from memory, as their signers can't be verified.
+	 */
+	private static void requireUnsigned(MappedJarFile mapped, String name) throws ZipException {
+		if(mapped.isSigned())
+			throw new ZipException("The jar " + name + " is signed, and can't be loaded from memory!");
+	}
+	
+	/*
+	 * Memory map a jar file URL, or null if the URL isn't a jar file that can be read directly.
+	 */
+	private static MappedJarFile map(URL url) {
+		if(url == null || !"file".equals(url.getProtocol()))
+			return null;
+		try {
+			File file = Paths.get(url.toURI()).toFile();
+			if(!file.isFile())
+				return null;
+			MappedJarFile mapped = MappedJarFile.map(file);
+			return mapped.isSigned() || mapped.isMultiRelease() ? null : mapped;
+		} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	/*
+	 * Open a jar file URL through the handle pool of the JarLoader, or null if there is no pool, or the URL isn't a jar file that can be read directly.
+	 */
+	private PooledJarFile pool(URL url) {
+		JarHandlePool pool = this.jarLoader.getJarHandlePool();
+		if(pool == null || url == null || !"file".equals(url.getProtocol()))
+			return null;
+		try {
+			File file = Paths.get(url.toURI()).toFile();
+			if(!file.isFile())
+				return null;
+			PooledJarFile pooled = PooledJarFile.open(file, pool);
+			if(!pooled.isSigned() && !pooled.isMultiRelease())
+				return pooled;
+			pooled.close();
+			return null;
+		} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	/*
+	 * Record the packages found in a newly added URL, and share them with the JarLoader package index.
+	 */
+	private void index(Set<String> found, boolean unindexable) {
+		if(unindexable)
+			this.indexed = false;
+		this.packages.addAll(found);
+		this.jarLoader.index(this, found, unindexable);
+	}
+	
+	/**
+	 * Get the package name of a class.
+	 * @param className The binary name of the class.
+	 * @return The package name of the class, or an empty string for the default package.
+	 */
+	public static String getPackageName(String className) {
+		int index = className.lastIndexOf('.');
+		return index < 0 ? "" : className.substring(0, index);
+	}
+	
+	/**
+	 * Scan a jar file or directory URL for the packages of the classes inside it, without loading anything.
+	 * @param url The URL of the jar file or directory.
+	 * @return The package names of the classes found, or null if the URL can't be scanned.
+	 */
+	public static Set<String> scanPackages(URL url) {
+		if(url == null || !"file".equals(url.getProtocol()))
+			return null;
+		Path path;
+		try {
+			path = Paths.get(url.toURI());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+		Set<String> found = new HashSet<>();
+		if(path.toFile().isDirectory()) {
+			try (Stream<Path> files = Files.walk(path)) {
+				files.map(file -> path.relativize(file).toString().replace(File.separatorChar, '/')).forEach(entry -> addPackage(found, entry));
+			} catch (IOException | RuntimeException e) {
+				return null;
+			}
+		} else if(path.toFile().isFile()) {
+			try (ZipFile zip = new ZipFile(path.toFile())) {
+				Enumeration<? extends ZipEntry> entries = zip.entries();
+				while(entries.hasMoreElements())
+					addPackage(found, entries.nextElement().getName());
+			} catch (IOException e) {
+				return null;
+			}
+		} else {
+			return null;
+		}
+		return found;
+	}
+	
+	/*
+	 * Get the packages of the classes in a list of entry names.
+	 */
+	private static Set<String> scanPackages(Iterable<String> entries) {
+		Set<String> found = new HashSet<>();
+		entries.forEach(entry -> addPackage(found, entry));
+		return found;
+	}
+	
+	/*
+	 * Add the package of a class entry name, such as "a/b/C.class", to the set of found packages.
+	 */
+	private static void addPackage(Set<String> found, String entry) {
+		if(!entry.endsWith(".class"))
+			return;
+		if(entry.startsWith(VERSIONED_PREFIX)) {
+			int index = entry.indexOf('/', VERSIONED_PREFIX.length());
+			if(index < 0)
+				return;
+			entry = entry.substring(index + 1);
+		}
+		if(entry.equals("module-info.class"))
+			return;
+		int index = entry.lastIndexOf('/');
+		found.add(index < 0 ? "" : entry.substring(0, index).replace('/', '.'));
 	}
 
 }
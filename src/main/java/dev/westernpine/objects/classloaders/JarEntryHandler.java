@@ -0,0 +1,99 @@
+package dev.westernpine.objects.classloaders;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Opens the entry URLs of an indexed jar, such as "jarloader-memory:/1/library.jar!/a/b.txt", reading the entry bytes straight from the jar instead of through the JDK jar URL cache.
+ * @author WesternPine
+ * 
+ */
+class JarEntryHandler extends URLStreamHandler {
+	
+	private volatile IndexedJar jar;
+	
+	/**
+	 * Set the jar to read entries from, once it is built.
+	 * @param jar The jar whose entry URLs use this handler.
+	 */
+	void bind(IndexedJar jar) {
+		this.jar = jar;
+	}
+	
+	@Override
+	protected URLConnection openConnection(URL url) throws IOException {
+		String file = url.getFile();
+		int index = file.indexOf("!/");
+		IndexedJar jar = this.jar;
+		ByteBuffer bytes = index < 0 || jar == null ? null : jar.getBytes(file.substring(index + 2));
+		if(bytes == null)
+			throw new FileNotFoundException(url.toString());
+		return new URLConnection(url) {
+			
+			@Override
+			public void connect() {
+				this.connected = true;
+			}
+			
+			@Override
+			public long getContentLengthLong() {
+				return bytes.remaining();
+			}
+			
+			@Override
+			public InputStream getInputStream() {
+				this.connected = true;
+				return new BufferInputStream(bytes.duplicate());
+			}
+		
+		};
+	}
+	
+	/*
+	 * Streams the remaining bytes of a buffer.
+	 */
+	private static class BufferInputStream extends InputStream {
+		
+		private final ByteBuffer buffer;
+		
+		private BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+		
+		@Override
+		public int read() {
+			return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+		}
+		
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if(length == 0)
+				return 0;
+			if(!this.buffer.hasRemaining())
+				return -1;
+			length = Math.min(length, this.buffer.remaining());
+			this.buffer.get(bytes, offset, length);
+			return length;
+		}
+		
+		@Override
+		public long skip(long count) {
+			int skipped = (int) Math.max(0, Math.min(count, this.buffer.remaining()));
+			((Buffer) this.buffer).position(this.buffer.position() + skipped);
+			return skipped;
+		}
+		
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+	
+	}
+
+}
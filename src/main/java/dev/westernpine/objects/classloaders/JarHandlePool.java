@@ -0,0 +1,261 @@
+package dev.westernpine.objects.classloaders;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarFile;
+
+/**
+ * A pool of open jar file handles shared by every JarClassLoader of a JarLoader, capping how many jar files are open at once.
+ * Once the cap is exceeded, idle handles are closed in least recently used order, and reopened on demand. Handles in use are never closed.
+ * @author WesternPine
+ * 
+ */
+public class JarHandlePool {
+	
+	/**
+	 * The default maximum amount of open jar files.
+	 */
+	public static final int DEFAULT_MAX_OPEN = 256;
+	
+	private final Map<String, Handle> handles = new LinkedHashMap<>(16, 0.75f, true);
+	
+	private volatile int maxOpen;
+	
+	private int open;
+	
+	private final LongAdder opens = new LongAdder();
+	
+	private final LongAdder reopens = new LongAdder();
+	
+	private final LongAdder evictions = new LongAdder();
+	
+	/**
+	 * Create a new pool of up to {@link #DEFAULT_MAX_OPEN} open jar files.
+	 */
+	public JarHandlePool() {
+		this(DEFAULT_MAX_OPEN);
+	}
+	
+	/**
+	 * Create a new pool of open jar files.
+	 * @param maxOpen The maximum amount of idle jar files kept open.
+	 */
+	public JarHandlePool(int maxOpen) {
+		this.maxOpen = Math.max(1, maxOpen);
+	}
+	
+	/**
+	 * 
+	 * @return The maximum amount of idle jar files kept open.
+	 */
+	public int getMaxOpen() {
+		return this.maxOpen;
+	}
+	
+	/**
+	 * Set the maximum amount of idle jar files kept open, closing the least recently used idle handles over the new cap.
+	 * @param maxOpen The maximum amount of idle jar files kept open.
+	 * @return This same object.
+	 */
+	public JarHandlePool setMaxOpen(int maxOpen) {
+		this.maxOpen = Math.max(1, maxOpen);
+		evict();
+		return this;
+	}
+	
+	/**
+	 * Add a user of a jar file, such as a PooledJarFile. The handle of the jar file is only dropped from the pool once its last user is removed.
+	 * @param file The jar file.
+	 * @return The key of the jar file in this pool, identifying its path, size and last modified time.
+	 */
+	public String register(File file) {
+		file = new File(file.getAbsolutePath());
+		String key = file.getPath() + "|" + file.length() + "|" + file.lastModified();
+		synchronized (this.handles) {
+			Handle handle = this.handles.get(key);
+			if(handle == null) {
+				handle = new Handle(file, file.length(), file.lastModified());
+				this.handles.put(key, handle);
+			}
+			handle.owners++;
+		}
+		return key;
+	}
+	
+	/**
+	 * Remove a user of a jar file, closing its handle once no user is left.
+	 * @param key The key returned by {@link #register(File)}.
+	 */
+	public void unregister(String key) {
+		synchronized (this.handles) {
+			Handle handle = this.handles.get(key);
+			if(handle == null || --handle.owners > 0)
+				return;
+			this.handles.remove(key);
+			if(handle.users == 0)
+				closeHandle(handle, false);
+		}
+	}
+	
+	/**
+	 * Use the open handle of a registered jar file, opening it again if it was evicted.
+	 * @param key The key returned by {@link #register(File)}.
+	 * @param function The work to do with the open jar file. The jar file must not be used after the function returns.
+	 * @return The result of the function.
+	 * @throws IOException If the jar file isn't registered, changed since it was registered, can't be opened, or the function throws.
+	 */
+	public <T> T use(String key, JarFunction<T> function) throws IOException {
+		Handle handle;
+		synchronized (this.handles) {
+			handle = this.handles.get(key);
+			if(handle == null)
+				throw new IOException("The jar file " + key + " isn't registered with this pool!");
+			handle.users++;
+		}
+		try {
+			JarFile jar = open(handle);
+			evict();
+			return function.apply(jar);
+		} finally {
+			synchronized (this.handles) {
+				handle.users--;
+				if(handle.users == 0 && handle.owners == 0)
+					closeHandle(handle, false);
+			}
+			evict();
+		}
+	}
+	
+	/**
+	 * 
+	 * @return The amount of jar files currently open.
+	 */
+	public int getOpen() {
+		synchronized (this.handles) {
+			return this.open;
+		}
+	}
+	
+	/**
+	 * 
+	 * @return The amount of times a jar file was opened for the first time.
+	 */
+	public long getOpens() {
+		return this.opens.sum();
+	}
+	
+	/**
+	 * 
+	 * @return The amount of times an evicted jar file was opened again.
+	 */
+	public long getReopens() {
+		return this.reopens.sum();
+	}
+	
+	/**
+	 * 
+	 * @return The amount of idle jar files closed to stay within the cap.
+	 */
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+	
+	/*
+	 * Open the jar file of a handle in use, if it isn't open yet.
+	 */
+	private JarFile open(Handle handle) throws IOException {
+		synchronized (handle) {
+			if(handle.jar != null)
+				return handle.jar;
+			if(handle.file.length() != handle.size || handle.file.lastModified() != handle.modified)
+				throw new IOException("The jar file " + handle.file.getName() + " changed since it was indexed!");
+			JarFile jar = new JarFile(handle.file, false);
+			synchronized (this.handles) {
+				handle.jar = jar;
+				this.open++;
+				if(handle.opened)
+					this.reopens.increment();
+				else
+					this.opens.increment();
+				handle.opened = true;
+			}
+			return jar;
+		}
+	}
+	
+	/*
+	 * Close the least recently used idle handles, until no more than the cap are open.
+	 */
+	private void evict() {
+		synchronized (this.handles) {
+			Iterator<Handle> iterator = this.handles.values().iterator();
+			while(this.open > this.maxOpen && iterator.hasNext()) {
+				Handle handle = iterator.next();
+				if(handle.users == 0 && handle.jar != null)
+					closeHandle(handle, true);
+			}
+		}
+	}
+	
+	/*
+	 * Close the jar file of an idle handle. Must be called while holding the handles lock.
+	 */
+	private void closeHandle(Handle handle, boolean evicted) {
+		if(handle.jar == null)
+			return;
+		try {
+			handle.jar.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		handle.jar = null;
+		this.open--;
+		if(evicted)
+			this.evictions.increment();
+	}
+	
+	/**
+	 * Work done with an open jar file.
+	 */
+	@FunctionalInterface
+	public static interface JarFunction<T> {
+		
+		/**
+		 * Do the work with the open jar file.
+		 * @param jar The open jar file.
+		 * @return The result of the work.
+		 * @throws IOException If the jar file can't be read.
+		 */
+		public T apply(JarFile jar) throws IOException;
+	
+	}
+	
+	private static class Handle {
+		
+		private final File file;
+		
+		private final long size;
+		
+		private final long modified;
+		
+		private JarFile jar;
+		
+		private int users;
+		
+		private int owners;
+		
+		private boolean opened;
+		
+		private Handle(File file, long size, long modified) {
+			this.file = file;
+			this.size = size;
+			this.modified = modified;
+		}
+	
+	}
+
+}
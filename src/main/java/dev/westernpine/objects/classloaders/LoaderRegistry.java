@@ -0,0 +1,119 @@
+package dev.westernpine.objects.classloaders;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A versioned registry of saved jar class loaders.
+ * Readers iterate an immutable snapshot without locking, and every change publishes one new snapshot, no matter how many loaders it adds or removes.
+ * Membership is kept as a flag on each loader, so checking if a loader is saved doesn't search the registry.
+ * @author WesternPine
+ * 
+ */
+public class LoaderRegistry implements Iterable<JarClassLoader> {
+	
+	private volatile Snapshot snapshot = new Snapshot(0, Collections.emptySet());
+	
+	/**
+	 * 
+	 * @return The current snapshot of saved loaders.
+	 */
+	public Snapshot getSnapshot() {
+		return this.snapshot;
+	}
+	
+	/**
+	 * Check if a loader is saved in this registry.
+	 * @param loader The loader to check.
+	 * @return True if the loader is saved.
+	 */
+	public boolean contains(JarClassLoader loader) {
+		return loader.integrated;
+	}
+	
+	/**
+	 * Save loaders to this registry, publishing a single new snapshot.
+	 * @param loaders The loaders to save.
+	 * @return The loaders that weren't saved before.
+	 */
+	public synchronized List<JarClassLoader> addAll(Collection<JarClassLoader> loaders) {
+		Set<JarClassLoader> added = new LinkedHashSet<>();
+		for(JarClassLoader loader : loaders) {
+			if(!loader.integrated)
+				added.add(loader);
+		}
+		if(added.isEmpty())
+			return Collections.emptyList();
+		Set<JarClassLoader> next = new LinkedHashSet<>(this.snapshot.loaders);
+		next.addAll(added);
+		added.forEach(loader -> loader.integrated = true);
+		this.snapshot = new Snapshot(this.snapshot.version + 1, Collections.unmodifiableSet(next));
+		return new ArrayList<>(added);
+	}
+	
+	/**
+	 * Remove loaders from this registry, publishing a single new snapshot.
+	 * @param loaders The loaders to remove.
+	 * @return The loaders that were saved before.
+	 */
+	public synchronized List<JarClassLoader> removeAll(Collection<JarClassLoader> loaders) {
+		Set<JarClassLoader> removed = new LinkedHashSet<>();
+		for(JarClassLoader loader : loaders) {
+			if(loader.integrated)
+				removed.add(loader);
+		}
+		if(removed.isEmpty())
+			return Collections.emptyList();
+		Set<JarClassLoader> next = new LinkedHashSet<>(this.snapshot.loaders);
+		next.removeAll(removed);
+		removed.forEach(loader -> loader.integrated = false);
+		this.snapshot = new Snapshot(this.snapshot.version + 1, Collections.unmodifiableSet(next));
+		return new ArrayList<>(removed);
+	}
+	
+	/**
+	 * Iterate the current snapshot of saved loaders.
+	 */
+	@Override
+	public Iterator<JarClassLoader> iterator() {
+		return this.snapshot.loaders.iterator();
+	}
+	
+	/**
+	 * An immutable view of the saved loaders at one point in time.
+	 */
+	public static class Snapshot {
+		
+		private final long version;
+		
+		private final Set<JarClassLoader> loaders;
+		
+		private Snapshot(long version, Set<JarClassLoader> loaders) {
+			this.version = version;
+			this.loaders = loaders;
+		}
+		
+		/**
+		 * 
+		 * @return The version of this snapshot, incremented every time the registry changes.
+		 */
+		public long version() {
+			return this.version;
+		}
+		
+		/**
+		 * 
+		 * @return The unmodifiable set of saved loaders, in the order they were saved.
+		 */
+		public Set<JarClassLoader> loaders() {
+			return this.loaders;
+		}
+	
+	}
+
+}
@@ -0,0 +1,451 @@
+package dev.westernpine.objects.classloaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLStreamHandler;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A jar file read straight from a memory mapped region, or from a buffer in memory.
+ * The central directory is parsed once into a table of entry names to offsets, stored entries are served as zero-copy slices of the region, and deflated entries are inflated with pooled inflaters.
+ * @author WesternPine
+ * 
+ */
+public class MappedJarFile implements IndexedJar {
+	
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int END_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+	
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+	
+	private static final int MAX_POOLED_INFLATERS = 32;
+	private static final Queue<Inflater> INFLATERS = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * The protocol of the URLs of jars held in memory, and their entries.
+	 */
+	public static final String MEMORY_PROTOCOL = "jarloader-memory";
+	
+	private static final AtomicLong MEMORY_IDS = new AtomicLong();
+	
+	/**
+	 * Memory map a jar file, and index its central directory.
+	 * @param file The jar file to map.
+	 * @return The mapped jar file.
+	 * @throws IOException If the file can't be read, is too large to map, or isn't a valid zip archive.
+	 */
+	public static MappedJarFile map(File file) throws IOException {
+		file = new File(file.getAbsolutePath());
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new ZipException("The file " + file.getName() + " is too large to be mapped!");
+			return new MappedJarFile(file.toURI().toURL(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/**
+	 * Index a jar archive held in memory, without it ever touching the disk.
+	 * Resources of the jar get URLs with their own stream handler, reading the entry bytes straight from the buffer.
+	 * @param name The name of the jar, used in its URL. Such as "library.jar".
+	 * @param data The bytes of the archive, on or off heap, from the position to the limit of the buffer. The buffer is not modified, but must not be changed while the jar is in use.
+	 * @return The in memory jar file.
+	 * @throws IOException If the archive is not a valid zip archive.
+	 */
+	public static MappedJarFile wrap(String name, ByteBuffer data) throws IOException {
+		JarEntryHandler handler = new JarEntryHandler();
+		URL url = new URL(MEMORY_PROTOCOL, "", -1, "/" + MEMORY_IDS.incrementAndGet() + "/" + name, handler);
+		MappedJarFile jar = new MappedJarFile(url, data, handler);
+		handler.bind(jar);
+		return jar;
+	}
+	
+	private final URL url;
+	
+	private final URLStreamHandler handler;
+	
+	private final CodeSource codeSource;
+	
+	private final ByteBuffer data;
+	
+	private final Map<String, Entry> entries;
+	
+	private final Manifest manifest;
+	
+	private final boolean signed;
+	
+	private volatile boolean closed;
+	
+	/**
+	 * Index a jar archive held in the given buffer.
+	 * @param url The URL the archive was read from. Resource URLs are built off of this.
+	 * @param data The bytes of the archive, from the position to the limit of the buffer. The buffer is not modified.
+	 * @throws IOException If the archive is not a valid zip archive.
+	 */
+	public MappedJarFile(URL url, ByteBuffer data) throws IOException {
+		this(url, data, null);
+	}
+	
+	/*
+	 * Share the bytes and index of another jar, under a new URL.
+	 */
+	private MappedJarFile(MappedJarFile source, URL url, URLStreamHandler handler) {
+		this.url = url;
+		this.handler = handler;
+		this.codeSource = new CodeSource(url, (CodeSigner[]) null);
+		this.data = source.data;
+		this.entries = source.entries;
+		this.manifest = source.manifest;
+		this.signed = source.signed;
+	}
+	
+	private MappedJarFile(URL url, ByteBuffer data, URLStreamHandler handler) throws IOException {
+		this.url = url;
+		this.handler = handler;
+		this.codeSource = new CodeSource(url, (CodeSigner[]) null);
+		this.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+		this.entries = Collections.unmodifiableMap(readCentralDirectory(this.data));
+		Entry manifestEntry = this.entries.get(JarFile.MANIFEST_NAME);
+		this.manifest = manifestEntry == null ? null : new Manifest(new ByteArrayInputStream(toArray(read(manifestEntry))));
+		this.signed = this.entries.keySet().stream().anyMatch(name -> name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC")));
+	}
+	
+	/**
+	 * 
+	 * @return The URL this jar was read from.
+	 */
+	@Override
+	public URL getURL() {
+		return this.url;
+	}
+	
+	/**
+	 * 
+	 * @return The code source to define classes of this jar with.
+	 */
+	@Override
+	public CodeSource getCodeSource() {
+		return this.codeSource;
+	}
+	
+	/**
+	 * 
+	 * @return The manifest of this jar, or null if it has none.
+	 */
+	@Override
+	public Manifest getManifest() {
+		return this.manifest;
+	}
+	
+	/**
+	 * 
+	 * @return True if this jar contains signature files. Signed jars need their signers verified, which this reader doesn't do.
+	 */
+	public boolean isSigned() {
+		return this.signed;
+	}
+	
+	/**
+	 * 
+	 * @return True if the manifest declares this jar as a multi-release jar. Versioned entries aren't resolved by this reader.
+	 */
+	public boolean isMultiRelease() {
+		return this.manifest != null && "true".equalsIgnoreCase(this.manifest.getMainAttributes().getValue(new Attributes.Name("Multi-Release")));
+	}
+	
+	/**
+	 * 
+	 * @return The names of all entries in this jar.
+	 */
+	@Override
+	public Set<String> getNames() {
+		return this.entries.keySet();
+	}
+	
+	/**
+	 * Check if this jar contains an entry.
+	 * @param name The entry name, such as "a/b/C.class".
+	 * @return True if the entry exists in this jar.
+	 */
+	@Override
+	public boolean contains(String name) {
+		return !this.closed && this.entries.containsKey(name);
+	}
+	
+	/**
+	 * Get the URL of an entry in this jar.
+	 * @param name The entry name.
+	 * @return A jar URL pointing to the entry, or a URL read straight from memory for in memory jars, or null if there is no such entry.
+	 */
+	@Override
+	public URL getEntryURL(String name) {
+		if(!contains(name))
+			return null;
+		try {
+			if(this.handler != null)
+				return new URL(MEMORY_PROTOCOL, "", -1, this.url.getFile() + "!/" + name, this.handler);
+			return new URL("jar:" + this.url + "!/" + name);
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Read the uncompressed bytes of an entry.
+	 * @param name The entry name.
+	 * @return A read only buffer of the entry bytes (a slice of the mapped region if the entry is stored), or null if there is no such entry.
+	 * @throws IOException If the entry is compressed with an unsupported method, or is corrupt.
+	 */
+	@Override
+	public ByteBuffer getBytes(String name) throws IOException {
+		if(this.closed)
+			return null;
+		Entry entry = this.entries.get(name);
+		return entry == null ? null : read(entry);
+	}
+	
+	/**
+	 * Open a jar stored inside this jar, such as "lib/library.jar", as an in memory jar.
+	 * A stored (uncompressed) nested jar is read through a zero-copy slice of this jar's bytes, and a deflated one is inflated into memory once.
+	 * @param name The entry name of the nested jar.
+	 * @return The nested jar, or null if there is no such entry.
+	 * @throws IOException If the entry can't be read, or isn't a valid jar.
+	 */
+	public MappedJarFile openNested(String name) throws IOException {
+		ByteBuffer bytes = getBytes(name);
+		return bytes == null ? null : wrap(name, bytes);
+	}
+	
+	/**
+	 * Open this jar again, sharing its bytes and index without parsing it again. The new jar can be closed on its own.
+	 * @return A new jar of the same contents. In memory jars get a new URL.
+	 * @throws IOException If this jar was closed.
+	 */
+	public MappedJarFile reopen() throws IOException {
+		if(this.closed)
+			throw new IOException("The jar " + this.url + " is closed!");
+		if(this.handler == null)
+			return new MappedJarFile(this, this.url, null);
+		JarEntryHandler handler = new JarEntryHandler();
+		String file = this.url.getFile();
+		URL url = new URL(MEMORY_PROTOCOL, "", -1, "/" + MEMORY_IDS.incrementAndGet() + file.substring(file.indexOf('/', 1)), handler);
+		MappedJarFile jar = new MappedJarFile(this, url, handler);
+		handler.bind(jar);
+		return jar;
+	}
+	
+	/**
+	 * Stop serving entries from this jar. The mapped region is released once it is no longer referenced.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+	}
+	
+	/*
+	 * Read the bytes of an entry, inflating them if needed.
+	 */
+	private ByteBuffer read(Entry entry) throws IOException {
+		if(!isInside(this.data, entry.headerOffset, 30) || this.data.getInt(entry.headerOffset) != LOCAL_HEADER_SIGNATURE)
+			throw new ZipException("Invalid local header for entry " + entry.name + " in " + this.url);
+		long start = (long) entry.headerOffset + 30 + unsignedShort(this.data, entry.headerOffset + 26) + unsignedShort(this.data, entry.headerOffset + 28);
+		if(!isInside(this.data, start, entry.compressedSize))
+			throw new ZipException("Truncated data for entry " + entry.name + " in " + this.url);
+		ByteBuffer compressed = slice(this.data, (int) start, entry.compressedSize);
+		switch(entry.method) {
+		case STORED:
+			return compressed.asReadOnlyBuffer();
+		case DEFLATED:
+			return ByteBuffer.wrap(inflate(entry, compressed));
+		default:
+			throw new ZipException("Unsupported compression method " + entry.method + " for entry " + entry.name + " in " + this.url);
+		}
+	}
+	
+	/*
+	 * Inflate a deflated entry with a pooled inflater.
+	 */
+	private static byte[] inflate(Entry entry, ByteBuffer compressed) throws IOException {
+		//Inflaters in "nowrap" mode may need one extra dummy byte after the compressed data.
+		byte[] input = new byte[entry.compressedSize + 1];
+		compressed.get(input, 0, entry.compressedSize);
+		byte[] output = new byte[entry.size];
+		Inflater inflater = INFLATERS.poll();
+		if(inflater == null)
+			inflater = new Inflater(true);
+		try {
+			inflater.setInput(input);
+			int read = 0;
+			while(read < output.length && !inflater.finished()) {
+				int count = inflater.inflate(output, read, output.length - read);
+				if(count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				read += count;
+			}
+			if(read != output.length)
+				throw new ZipException("Invalid entry size for entry " + entry.name + " (expected " + output.length + " but got " + read + " bytes)");
+			return output;
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid deflated data for entry " + entry.name + ": " + e.getMessage());
+		} finally {
+			inflater.reset();
+			if(INFLATERS.size() < MAX_POOLED_INFLATERS)
+				INFLATERS.offer(inflater);
+			else
+				inflater.end();
+		}
+	}
+	
+	/*
+	 * Find the end of central directory record, and read every central directory header.
+	 */
+	private static Map<String, Entry> readCentralDirectory(ByteBuffer data) throws IOException {
+		int end = -1;
+		for(int position = data.limit() - END_SIZE, min = Math.max(0, position - MAX_COMMENT_SIZE); position >= min; position--) {
+			if(data.getInt(position) == END_SIGNATURE) {
+				end = position;
+				break;
+			}
+		}
+		if(end < 0)
+			throw new ZipException("Unable to find the end of central directory record.");
+		long count = unsignedShort(data, end + 10);
+		long offset = unsignedInt(data, end + 16);
+		if((count == 0xFFFF || offset == 0xFFFFFFFFL) && end >= 20 && data.getInt(end - 20) == ZIP64_LOCATOR_SIGNATURE) {
+			long zip64End = data.getLong(end - 20 + 8);
+			if(zip64End < 0 || zip64End > data.limit() - 56 || data.getInt((int) zip64End) != ZIP64_END_SIGNATURE)
+				throw new ZipException("Invalid zip64 end of central directory record.");
+			count = data.getLong((int) zip64End + 32);
+			offset = data.getLong((int) zip64End + 48);
+		}
+		if(offset < 0 || offset > data.limit() || count < 0 || count > data.limit() / 46)
+			throw new ZipException("Invalid central directory offset or size.");
+		Map<String, Entry> entries = new HashMap<>((int) (count * 4 / 3) + 1);
+		int position = (int) offset;
+		for(long index = 0; index < count; index++) {
+			if(!isInside(data, position, 46) || data.getInt(position) != CENTRAL_HEADER_SIGNATURE)
+				throw new ZipException("Invalid central directory header.");
+			int flags = unsignedShort(data, position + 8);
+			int method = unsignedShort(data, position + 10);
+			long compressedSize = unsignedInt(data, position + 20);
+			long size = unsignedInt(data, position + 24);
+			int nameLength = unsignedShort(data, position + 28);
+			int extraLength = unsignedShort(data, position + 30);
+			int commentLength = unsignedShort(data, position + 32);
+			long headerOffset = unsignedInt(data, position + 42);
+			if(!isInside(data, position + 46L, (long) nameLength + extraLength + commentLength))
+				throw new ZipException("Truncated central directory header.");
+			byte[] nameBytes = new byte[nameLength];
+			slice(data, position + 46, nameLength).get(nameBytes);
+			//Zip64 sizes and offsets are kept in the extra field, in this order, only when their header value overflowed.
+			int extra = position + 46 + nameLength;
+			for(int at = extra; at + 4 <= extra + extraLength; ) {
+				int id = unsignedShort(data, at);
+				int length = unsignedShort(data, at + 2);
+				if(id == 0x0001) {
+					int field = at + 4;
+					int fieldEnd = Math.min(field + length, extra + extraLength);
+					if(size == 0xFFFFFFFFL) {size = readZip64(data, field, fieldEnd); field += 8;}
+					if(compressedSize == 0xFFFFFFFFL) {compressedSize = readZip64(data, field, fieldEnd); field += 8;}
+					if(headerOffset == 0xFFFFFFFFL) {headerOffset = readZip64(data, field, fieldEnd);}
+					break;
+				}
+				at += 4 + length;
+			}
+			position = extra + extraLength + commentLength;
+			if((flags & 1) != 0 || size < 0 || size > Integer.MAX_VALUE || compressedSize < 0 || compressedSize > Integer.MAX_VALUE || headerOffset < 0 || headerOffset > data.limit())
+				throw new ZipException("Unsupported encrypted or oversized entry " + new String(nameBytes, StandardCharsets.UTF_8) + ".");
+			String name = new String(nameBytes, StandardCharsets.UTF_8);
+			entries.putIfAbsent(name, new Entry(name, method, (int) compressedSize, (int) size, (int) headerOffset));
+		}
+		return entries;
+	}
+	
+	/*
+	 * Read a zip64 value of the extra field, which must fit before the end of its field.
+	 */
+	private static long readZip64(ByteBuffer data, int position, int end) throws ZipException {
+		if(position + 8 > end)
+			throw new ZipException("Truncated zip64 extra field.");
+		return data.getLong(position);
+	}
+	
+	/*
+	 * Check a range is inside the data, so malformed offsets and lengths fail with a ZipException instead of an IndexOutOfBoundsException.
+	 */
+	private static boolean isInside(ByteBuffer data, long position, long length) {
+		return position >= 0 && length >= 0 && position + length <= data.limit();
+	}
+	
+	private static ByteBuffer slice(ByteBuffer data, int position, int length) {
+		ByteBuffer slice = data.duplicate();
+		((Buffer) slice).limit(position + length);
+		((Buffer) slice).position(position);
+		return slice.slice();
+	}
+	
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+	
+	private static int unsignedShort(ByteBuffer data, int position) {
+		return data.getShort(position) & 0xFFFF;
+	}
+	
+	private static long unsignedInt(ByteBuffer data, int position) {
+		return data.getInt(position) & 0xFFFFFFFFL;
+	}
+	
+	private static class Entry {
+		
+		private final String name;
+		
+		private final int method;
+		
+		private final int compressedSize;
+		
+		private final int size;
+		
+		private final int headerOffset;
+		
+		private Entry(String name, int method, int compressedSize, int size, int headerOffset) {
+			this.name = name;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.headerOffset = headerOffset;
+		}
+	
+	}
+
+}
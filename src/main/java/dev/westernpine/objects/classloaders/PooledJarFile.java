@@ -0,0 +1,185 @@
+package dev.westernpine.objects.classloaders;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipException;
+
+/**
+ * A jar file read through a JarHandlePool. Its entry names and manifest stay in memory, while the jar file itself is only open while the pool keeps its handle.
+ * @author WesternPine
+ * 
+ */
+public class PooledJarFile implements IndexedJar {
+	
+	/**
+	 * Index a jar file, and register it with a handle pool.
+	 * @param file The jar file.
+	 * @param pool The pool to read the jar file through.
+	 * @return The pooled jar file.
+	 * @throws IOException If the jar file can't be read.
+	 */
+	public static PooledJarFile open(File file, JarHandlePool pool) throws IOException {
+		file = new File(file.getAbsolutePath());
+		String key = pool.register(file);
+		try {
+			return new PooledJarFile(file.toURI().toURL(), pool, key);
+		} catch (IOException | RuntimeException e) {
+			pool.unregister(key);
+			throw e;
+		}
+	}
+	
+	private final URL url;
+	
+	private final JarHandlePool pool;
+	
+	private final String key;
+	
+	private final JarEntryHandler handler;
+	
+	private final CodeSource codeSource;
+	
+	private final Set<String> names;
+	
+	private final Manifest manifest;
+	
+	private final boolean signed;
+	
+	private final AtomicBoolean closed = new AtomicBoolean();
+	
+	private PooledJarFile(URL url, JarHandlePool pool, String key) throws IOException {
+		this.url = url;
+		this.pool = pool;
+		this.key = key;
+		this.handler = new JarEntryHandler();
+		this.codeSource = new CodeSource(url, (CodeSigner[]) null);
+		Set<String> names = new HashSet<>();
+		this.manifest = pool.use(key, jar -> {
+			Enumeration<JarEntry> entries = jar.entries();
+			while(entries.hasMoreElements())
+				names.add(entries.nextElement().getName());
+			return jar.getManifest();
+		});
+		this.names = Collections.unmodifiableSet(names);
+		this.signed = names.stream().anyMatch(name -> name.startsWith("META-INF/") && (name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC")));
+		this.handler.bind(this);
+	}
+	
+	@Override
+	public URL getURL() {
+		return this.url;
+	}
+	
+	@Override
+	public CodeSource getCodeSource() {
+		return this.codeSource;
+	}
+	
+	@Override
+	public Manifest getManifest() {
+		return this.manifest;
+	}
+	
+	/**
+	 * 
+	 * @return True if this jar contains signature files. Signed jars need their signers verified, which this reader doesn't do.
+	 */
+	public boolean isSigned() {
+		return this.signed;
+	}
+	
+	/**
+	 * 
+	 * @return True if the manifest declares this jar as a multi-release jar. Versioned entries aren't resolved by this reader.
+	 */
+	public boolean isMultiRelease() {
+		return this.manifest != null && "true".equalsIgnoreCase(this.manifest.getMainAttributes().getValue(new Attributes.Name("Multi-Release")));
+	}
+	
+	@Override
+	public Set<String> getNames() {
+		return this.names;
+	}
+	
+	@Override
+	public boolean contains(String name) {
+		return !this.closed.get() && this.names.contains(name);
+	}
+	
+	/**
+	 * Get the URL of an entry in this jar. The URL is read through the handle pool, instead of the JDK jar URL cache, which would keep the jar file open.
+	 * @param name The entry name.
+	 * @return A jar URL pointing to the entry, or null if there is no such entry.
+	 */
+	@Override
+	public URL getEntryURL(String name) {
+		if(!contains(name))
+			return null;
+		try {
+			return new URL("jar", "", -1, this.url + "!/" + name, this.handler);
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+	
+	@Override
+	public ByteBuffer getBytes(String name) throws IOException {
+		if(!contains(name))
+			return null;
+		return this.pool.use(this.key, jar -> {
+			JarEntry entry = jar.getJarEntry(name);
+			if(entry == null)
+				return null;
+			if(entry.getSize() > Integer.MAX_VALUE)
+				throw new ZipException("The entry " + name + " in " + this.url + " is too large!");
+			try (InputStream in = jar.getInputStream(entry)) {
+				return ByteBuffer.wrap(readAll(in, (int) Math.max(0, entry.getSize()))).asReadOnlyBuffer();
+			}
+		});
+	}
+	
+	/**
+	 * Stop serving entries from this jar, and remove it from the handle pool.
+	 */
+	@Override
+	public void close() {
+		if(this.closed.compareAndSet(false, true))
+			this.pool.unregister(this.key);
+	}
+	
+	/*
+	 * Read a stream fully, starting with a buffer of the expected size.
+	 */
+	private static byte[] readAll(InputStream in, int expected) throws IOException {
+		byte[] bytes = new byte[Math.max(expected, 64)];
+		int read = 0;
+		for(int count; (count = in.read(bytes, read, bytes.length - read)) >= 0; ) {
+			read += count;
+			if(read == bytes.length) {
+				int next = in.read();
+				if(next < 0)
+					break;
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+				bytes[read++] = (byte) next;
+			}
+		}
+		return read == bytes.length ? bytes : Arrays.copyOf(bytes, read);
+	}
+
+}
@@ -0,0 +1,158 @@
+package dev.westernpine.objects.classloaders;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of class names resolved by, or missing from, the saved loaders of a JarLoader.
+ * Every entry is stamped with the generation it was resolved in, and any change to the saved loaders bumps the generation, making all older entries stale.
+ * @author WesternPine
+ * 
+ */
+public class ResolutionCache {
+	
+	/**
+	 * The default maximum amount of class names remembered as missing.
+	 */
+	public static final int DEFAULT_MAX_MISSING = 4096;
+	
+	private final AtomicLong generation = new AtomicLong();
+	
+	private final Map<String, Resolution> resolved = new ConcurrentHashMap<>();
+	
+	private final Map<String, Long> missing = new ConcurrentHashMap<>();
+	
+	private final int maxMissing;
+	
+	private final LongAdder hits = new LongAdder();
+	
+	private final LongAdder negativeHits = new LongAdder();
+	
+	private final LongAdder misses = new LongAdder();
+	
+	/**
+	 * Create a new resolution cache, remembering up to {@link #DEFAULT_MAX_MISSING} missing class names.
+	 */
+	public ResolutionCache() {
+		this(DEFAULT_MAX_MISSING);
+	}
+	
+	/**
+	 * Create a new resolution cache.
+	 * @param maxMissing The maximum amount of class names remembered as missing. Once exceeded, the missing names are forgotten.
+	 */
+	public ResolutionCache(int maxMissing) {
+		this.maxMissing = maxMissing;
+	}
+	
+	/**
+	 * 
+	 * @return The current generation. Capture this before a lookup, and pass it back when storing the result.
+	 */
+	public long getGeneration() {
+		return this.generation.get();
+	}
+	
+	/**
+	 * Make every cached entry stale. Called whenever the saved loaders, or their URLs, change.
+	 * @return The new generation.
+	 */
+	public long invalidate() {
+		long next = this.generation.incrementAndGet();
+		this.resolved.clear();
+		this.missing.clear();
+		return next;
+	}
+	
+	/**
+	 * Get the saved loader that last resolved a class name.
+	 * @param name The binary name of the class.
+	 * @return The loader that resolved the class in the current generation, or null.
+	 */
+	public JarClassLoader getResolved(String name) {
+		Resolution resolution = this.resolved.get(name);
+		if(resolution == null || resolution.generation != this.generation.get())
+			return null;
+		this.hits.increment();
+		return resolution.loader;
+	}
+	
+	/**
+	 * Check if a class name was not found by any saved loader.
+	 * @param name The binary name of the class.
+	 * @return True if the class name was missing in the current generation.
+	 */
+	public boolean isMissing(String name) {
+		Long stamp = this.missing.get(name);
+		if(stamp == null || stamp != this.generation.get())
+			return false;
+		this.negativeHits.increment();
+		return true;
+	}
+	
+	/**
+	 * Remember the saved loader that resolved a class name.
+	 * @param name The binary name of the class.
+	 * @param loader The loader that resolved the class.
+	 * @param generation The generation captured before the lookup started.
+	 */
+	public void resolved(String name, JarClassLoader loader, long generation) {
+		this.misses.increment();
+		if(generation == this.generation.get())
+			this.resolved.put(name, new Resolution(loader, generation));
+	}
+	
+	/**
+	 * Remember that no saved loader could resolve a class name.
+	 * @param name The binary name of the class.
+	 * @param generation The generation captured before the lookup started.
+	 */
+	public void missing(String name, long generation) {
+		this.misses.increment();
+		if(generation != this.generation.get())
+			return;
+		if(this.missing.size() >= this.maxMissing)
+			this.missing.clear();
+		this.missing.put(name, generation);
+	}
+	
+	/**
+	 * 
+	 * @return The amount of lookups answered by a cached loader.
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+	
+	/**
+	 * 
+	 * @return The amount of lookups answered by a cached missing class name.
+	 */
+	public long getNegativeHits() {
+		return this.negativeHits.sum();
+	}
+	
+	/**
+	 * 
+	 * @return The amount of lookups that had to search the saved loaders.
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+	
+	private static class Resolution {
+		
+		private final JarClassLoader loader;
+		
+		private final long generation;
+		
+		private Resolution(JarClassLoader loader, long generation) {
+			this.loader = loader;
+			this.generation = generation;
+		}
+	
+	}
+
+}
@@ -1,10 +1,17 @@
 package dev.westernpine.objects.classloaders;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import sun.misc.Unsafe;
 
@@ -55,6 +62,12 @@ public abstract class WrappedURLClassLoader {
      */
     public abstract void addURL(URL url);
     
+    /**
+     * Add several URLs to the URL class loader to load classes from, in a single pass.
+     * @param urls The URLs to add, in order.
+     */
+    public abstract void addURLs(Collection<URL> urls);
+    
     /*
      * For any time it's unsupported.
      */
@@ -70,6 +83,10 @@ public abstract class WrappedURLClassLoader {
 		public void addURL(URL url) {
 			throw new UnsupportedOperationException();
 		}
+		@Override
+		public void addURLs(Collection<URL> urls) {
+			throw new UnsupportedOperationException();
+		}
     }
     
     /*
@@ -78,15 +95,21 @@ public abstract class WrappedURLClassLoader {
     private static class ReflectiveLoader extends WrappedURLClassLoader {
     	//We could have used `Class.forName("java.lang.Module");`, but with this way we can reuse a method we'e checking for anyways.
     	private static final Method ADD_URL_METHOD;
+    	//Resolved once, so adding URLs skips the reflective access checks of Method#invoke.
+    	private static final MethodHandle ADD_URL_HANDLE;
         static {
             Method method;
+            MethodHandle handle;
             try {
                 method = URLClassLoader.class.getDeclaredMethod("addURL", URL.class);
                 method.setAccessible(true);
-            } catch (ReflectiveOperationException e) {
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (ReflectiveOperationException | RuntimeException e) {
             	method = null;
+            	handle = null;
             }
             ADD_URL_METHOD = method;
+            ADD_URL_HANDLE = handle;
         }
 		private ReflectiveLoader(URLClassLoader classLoader) {
 			super(classLoader);
@@ -98,10 +121,17 @@ public abstract class WrappedURLClassLoader {
 		}
 		@Override
 		public void addURL(URL url) {
+			addURLs(Collections.singletonList(url));
+		}
+		@Override
+		public void addURLs(Collection<URL> urls) {
 			try {
-                ADD_URL_METHOD.invoke(super.classLoader, url);
-            } catch (ReflectiveOperationException e) {
-                throw new RuntimeException(e);
+				for(URL url : urls)
+					ADD_URL_HANDLE.invoke(super.classLoader, url);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
             }
 		}
     }
@@ -123,6 +153,13 @@ public abstract class WrappedURLClassLoader {
     		}
     		UNSAFE = unsafe;
     	}
+    	//Field offsets are looked up once per class, instead of once per wrapped loader.
+    	private static final ClassValue<Map<String, Long>> OFFSETS = new ClassValue<Map<String, Long>>() {
+    		@Override
+    		protected Map<String, Long> computeValue(Class<?> type) {
+    			return new ConcurrentHashMap<>();
+    		}
+    	};
         private final Collection<URL> unopenedURLs;
         private final Collection<URL> pathURLs;
 		@SuppressWarnings("unchecked")
@@ -147,12 +184,28 @@ public abstract class WrappedURLClassLoader {
 		}
 		@Override
 		public void addURL(URL url) {
-            this.unopenedURLs.add(url);
-            this.pathURLs.add(url);
+			addURLs(Collections.singletonList(url));
+		}
+		@Override
+		public void addURLs(Collection<URL> urls) {
+			//The class path guards both collections with the unopened URLs, and skips URLs it already has.
+			synchronized (this.unopenedURLs) {
+				Set<String> present = new HashSet<>();
+				this.pathURLs.forEach(url -> present.add(url.toExternalForm()));
+				for(URL url : urls) {
+					if(url != null && present.add(url.toExternalForm())) {
+						this.unopenedURLs.add(url);
+						this.pathURLs.add(url);
+					}
+				}
+			}
 		}
 		private static Object getField(final Class<?> clazz, String name, Object object) throws NoSuchFieldException {
-            Field field = clazz.getDeclaredField(name);
-            long offset = UNSAFE.objectFieldOffset(field);
+            Long offset = OFFSETS.get(clazz).get(name);
+            if(offset == null) {
+            	offset = UNSAFE.objectFieldOffset(clazz.getDeclaredField(name));
+            	OFFSETS.get(clazz).put(name, offset);
+            }
             return UNSAFE.getObject(object, offset);
         }
     }
@@ -172,5 +225,9 @@ public abstract class WrappedURLClassLoader {
 		public void addURL(URL url) {
 			((JarClassLoader)super.classLoader).addURL(url);
 		}
+		@Override
+		public void addURLs(Collection<URL> urls) {
+			((JarClassLoader)super.classLoader).addURLs(urls);
+		}
     }
 }
\ No newline at end of file
@@ -26,7 +26,12 @@ public class Dependency {
 	public Repository repository = Repository.MAVEN_CENTRAL_REPOSITORY;
 	
 	/**
-	 * A new Dependency object representing required code. Note that not all dependencies are UBER Jars, so you may need to add additional dependencies.
+	 * The pinned SHA-1 or SHA-256 hex digest of the jar, or null to verify the jar against the repository's checksum file instead.
+	 */
+	public String checksum;
+	
+	/**
+	 * A new Dependency object representing required code. Note that not all dependencies are UBER Jars, so you may need to add additional dependencies, or resolve them with {@link DependencyResolver}.
 	 * @param groupId The groupId of the dependency.
 	 * @param artifactId The artifactId of the dependency.
 	 * @param version The version of the dependency.
@@ -47,21 +52,58 @@ public class Dependency {
 		return this;
 	}
 	
+	/**
+	 * Pin the digest of the jar of this dependency. Downloaded and existing jars not matching it are rejected.
+	 * @param checksum The SHA-1 (40 characters) or SHA-256 (64 characters) hex digest of the jar.
+	 * @return The Dependency object, instended to be used functionally.
+	 */
+	public Dependency withChecksum(String checksum) {
+		this.checksum = checksum;
+		return this;
+	}
+	
 	/**
 	 * Get the URL of this dependency in coordination with the set repository.
 	 * @return The URL of this dependency in coordination with the set repository.
 	 * @throws MalformedURLException If the URL is invalid.
 	 */
 	public URL getUrl() throws MalformedURLException {
+        return getUrl("jar");
+    }
+	
+	/**
+	 * Get the URL of the POM file of this dependency in coordination with the set repository.
+	 * @return The URL of the POM file of this dependency in coordination with the set repository.
+	 * @throws MalformedURLException If the URL is invalid.
+	 */
+	public URL getPomUrl() throws MalformedURLException {
+        return getUrl("pom");
+    }
+	
+	/**
+	 * Get the URL of a file of this dependency in coordination with the set repository.
+	 * @param extension The extension of the file, such as "jar", "pom", or "jar.sha1".
+	 * @return The URL of the file in coordination with the set repository.
+	 * @throws MalformedURLException If the URL is invalid.
+	 */
+	public URL getUrl(String extension) throws MalformedURLException {
         String repo = this.repository.url;
         if (!repo.endsWith("/")) {
             repo += "/";
         }
-        repo += "%s/%s/%s/%s-%s.jar";
-        String url = String.format(repo, this.groupId.replace(".", "/"), this.artifactId, this.version, this.artifactId, this.version);
+        repo += "%s/%s/%s/%s-%s.%s";
+        String url = String.format(repo, this.groupId.replace(".", "/"), this.artifactId, this.version, this.artifactId, this.version, extension);
         return new URL(url);
     }
 	
+	/**
+	 * 
+	 * @return The coordinates of this dependency, as "groupId:artifactId:version".
+	 */
+	public String getCoordinates() {
+		return this.groupId + ":" + this.artifactId + ":" + this.version;
+	}
+	
     @Override
     public String toString() {
         return "LibraryLoader.Dependency(" +
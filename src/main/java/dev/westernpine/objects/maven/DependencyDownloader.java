@@ -0,0 +1,409 @@
+package dev.westernpine.objects.maven;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.ZipFile;
+
+import dev.westernpine.objects.Digests;
+
+/**
+ * Downloads a batch of dependencies in parallel, with a limit on the amount of downloads at the same time.
+ * Connections are kept alive between downloads from the same repository, by reading every response fully and closing its stream, instead of disconnecting.
+ * @author WesternPine
+ * 
+ */
+public class DependencyDownloader {
+	
+	/**
+	 * The default maximum amount of downloads at the same time.
+	 */
+	public static final int DEFAULT_PARALLELISM = 8;
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private static final long ABANDONED_MILLIS = 10 * 60 * 1000;
+	
+	private final int parallelism;
+	
+	private DownloadListener listener = new DownloadListener() {};
+	
+	private int connectTimeout = 10_000;
+	
+	private int readTimeout = 30_000;
+	
+	private boolean requireChecksums;
+	
+	/**
+	 * Create a downloader running up to {@link #DEFAULT_PARALLELISM} downloads at the same time.
+	 */
+	public DependencyDownloader() {
+		this(DEFAULT_PARALLELISM);
+	}
+	
+	/**
+	 * Create a downloader.
+	 * @param parallelism The maximum amount of downloads at the same time.
+	 */
+	public DependencyDownloader(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+	
+	/**
+	 * Set the listener receiving the progress of every download.
+	 * @param listener The listener, called from many threads at once.
+	 * @return This same object.
+	 */
+	public DependencyDownloader withListener(DownloadListener listener) {
+		this.listener = listener == null ? new DownloadListener() {} : listener;
+		return this;
+	}
+	
+	/**
+	 * Set the timeouts of every connection.
+	 * @param connectTimeout The maximum time to connect, in milliseconds.
+	 * @param readTimeout The maximum time to wait for more data, in milliseconds.
+	 * @return This same object.
+	 */
+	public DependencyDownloader withTimeouts(int connectTimeout, int readTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		return this;
+	}
+	
+	/**
+	 * Set whether jars without a pinned checksum must have a checksum file in their repository. If not, such jars are accepted unverified.
+	 * @param requireChecksums True to reject jars that can't be verified.
+	 * @return This same object.
+	 */
+	public DependencyDownloader withRequiredChecksums(boolean requireChecksums) {
+		this.requireChecksums = requireChecksums;
+		return this;
+	}
+	
+	/**
+	 * Download every dependency not on disk yet, blocking until all are done.
+	 * Downloads go to a temporary file, hashed while copying, and are only renamed into place once verified against the pinned checksum of the dependency, or the repository's SHA-1 checksum file. Jars already on disk are checked against digests cached next to them, so they're only hashed again if they changed.
+	 * If any download fails, the downloads that haven't started yet are skipped, and the first failure is thrown once the running downloads are done, with the other failures suppressed.
+	 * @param dependencies The dependencies to download.
+	 * @param saveLocationHandler The file location to look for each jar at, or to save to.
+	 * @return The jar file of every dependency, in the order given.
+	 * @throws IOException If any dependency couldn't be downloaded.
+	 */
+	public Map<Dependency, File> download(Collection<Dependency> dependencies, Function<Dependency, File> saveLocationHandler) throws IOException {
+		Map<Dependency, File> files = new LinkedHashMap<>();
+		for(Dependency dependency : dependencies)
+			files.put(dependency, new File(saveLocationHandler.apply(dependency).getAbsolutePath()));
+		files.values().stream().map(File::getParentFile).distinct().forEach(this::deleteAbandoned);
+		AtomicBoolean failed = new AtomicBoolean();
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelism, Math.max(1, files.size())), runnable -> {
+			Thread thread = new Thread(runnable, "JarLoader-Download-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			files.forEach((dependency, file) -> futures.add(executor.submit(() -> {
+				if(failed.get())
+					return null;
+				try {
+					download(dependency, file);
+				} catch (IOException | RuntimeException e) {
+					failed.set(true);
+					this.listener.onFailure(dependency, e);
+					throw e;
+				}
+				return null;
+			})));
+		} finally {
+			executor.shutdown();
+		}
+		IOException failure = null;
+		for(Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while downloading dependencies", e);
+			} catch (ExecutionException e) {
+				IOException cause = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+				if(failure == null)
+					failure = cause;
+				else
+					failure.addSuppressed(cause);
+			}
+		}
+		if(failure != null)
+			throw failure;
+		return files;
+	}
+	
+	/*
+	 * Delete the temporary files of killed downloads in a directory. A running download writes to its temporary file at least once per read timeout, so files left untouched for much longer are abandoned.
+	 */
+	private void deleteAbandoned(File directory) {
+		File[] parts = directory.listFiles((dir, name) -> name.contains(".jar.") && name.endsWith(".part"));
+		if(parts == null)
+			return;
+		long abandoned = System.currentTimeMillis() - Math.max(ABANDONED_MILLIS, 2L * (this.connectTimeout + this.readTimeout));
+		for(File part : parts) {
+			if(part.lastModified() < abandoned)
+				part.delete();
+		}
+	}
+	
+	/*
+	 * Download one dependency, unless a valid jar is already on disk.
+	 */
+	private void download(Dependency dependency, File file) throws IOException {
+		long start = System.nanoTime();
+		if(file.isFile()) {
+			if(isValid(dependency, file)) {
+				this.listener.onComplete(dependency, file, 0, System.nanoTime() - start);
+				return;
+			}
+			Files.delete(file.toPath());
+		}
+		File parent = file.getParentFile();
+		if(parent != null)
+			parent.mkdirs();
+		//Download next to the jar, so a killed download never leaves a jar behind, and the rename stays on one file system.
+		Path temp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName() + ".", ".part");
+		MessageDigest sha1 = Digests.newDigest(Digests.SHA_1);
+		MessageDigest sha256 = Digests.newDigest(Digests.SHA_256);
+		long bytes = 0;
+		try {
+			try (InputStream in = open(dependency.getUrl(), dependency); OutputStream out = Files.newOutputStream(temp)) {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				for(int read; (read = in.read(buffer)) != -1;) {
+					out.write(buffer, 0, read);
+					sha1.update(buffer, 0, read);
+					sha256.update(buffer, 0, read);
+					bytes += read;
+					this.listener.onProgress(dependency, bytes);
+				}
+			}
+			String[] hashes = {Digests.toHex(sha1.digest()), Digests.toHex(sha256.digest())};
+			verify(dependency, hashes);
+			move(temp, file.toPath());
+			writeDigests(file, hashes);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		this.listener.onComplete(dependency, file, bytes, System.nanoTime() - start);
+	}
+	
+	/*
+	 * Check a jar already on disk, using the digests cached next to it while it's unchanged, or else hashing it once.
+	 * Without a pinned checksum, a jar without cached digests only has to be a readable zip file, which catches truncated downloads.
+	 */
+	private boolean isValid(Dependency dependency, File file) throws IOException {
+		String[] hashes = readDigests(file);
+		if(hashes == null) {
+			hashes = Digests.hash(file, Digests.SHA_1, Digests.SHA_256);
+			if(dependency.checksum == null && !isZip(file))
+				return false;
+			if(dependency.checksum == null || matches(dependency.checksum, hashes)) {
+				try {
+					writeDigests(file, hashes);
+				} catch (IOException e) {
+					//The digests are only a cache, such as in a read only directory, so the jar is hashed again next time.
+				}
+			}
+		}
+		return dependency.checksum == null || matches(dependency.checksum, hashes);
+	}
+	
+	/*
+	 * Verify downloaded digests against the pinned checksum, or else the repository's SHA-1 checksum file.
+	 */
+	private void verify(Dependency dependency, String[] hashes) throws IOException {
+		if(dependency.checksum != null) {
+			if(!matches(dependency.checksum, hashes))
+				throw new IOException("Checksum mismatch for dependency: " + dependency.toString() + " (expected " + dependency.checksum + ", got sha1 " + hashes[0] + ", sha256 " + hashes[1] + ")");
+			return;
+		}
+		String expected = fetchChecksum(dependency);
+		if(expected == null) {
+			if(this.requireChecksums)
+				throw new IOException("No checksum file found for dependency: " + dependency.toString());
+			return;
+		}
+		if(!expected.equalsIgnoreCase(hashes[0]))
+			throw new IOException("Checksum mismatch for dependency: " + dependency.toString() + " (expected sha1 " + expected + ", got " + hashes[0] + ")");
+	}
+	
+	/*
+	 * Check a pinned checksum against the SHA-1 and SHA-256 digests, picking the algorithm by its length.
+	 */
+	private static boolean matches(String checksum, String[] hashes) {
+		return checksum.trim().equalsIgnoreCase(checksum.trim().length() == 40 ? hashes[0] : hashes[1]);
+	}
+	
+	/*
+	 * Get the SHA-1 digest from the repository's checksum file of a jar, or null if the repository has none.
+	 * Only a missing checksum file counts as none. Any other failure is thrown, so a failing mirror can't skip verification.
+	 */
+	private String fetchChecksum(Dependency dependency) throws IOException {
+		URL url = dependency.getUrl("jar.sha1");
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(this.connectTimeout);
+		connection.setReadTimeout(this.readTimeout);
+		if(connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			int code = http.getResponseCode();
+			if(code != HttpURLConnection.HTTP_OK) {
+				try (InputStream error = http.getErrorStream()) {
+					drain(error);
+				}
+				if(code == HttpURLConnection.HTTP_NOT_FOUND)
+					return null;
+				throw new IOException("Unable to download checksum of dependency: " + dependency.toString() + " (HTTP " + code + " from " + url + ")");
+			}
+		}
+		String contents;
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[256];
+			for(int read; (read = in.read(buffer)) != -1;)
+				out.write(buffer, 0, read);
+			contents = new String(out.toByteArray(), StandardCharsets.US_ASCII).trim();
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+		//Checksum files hold the hex digest, sometimes followed by the file name.
+		String[] parts = contents.split("\\s+");
+		return parts[0].isEmpty() ? null : parts[0];
+	}
+	
+	/*
+	 * Read the digests cached next to a jar, or null if there are none, or the jar changed since.
+	 */
+	static String[] readDigests(File file) {
+		File digests = getDigestsFile(file);
+		if(!digests.isFile())
+			return null;
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(digests.toPath())) {
+			properties.load(in);
+		} catch (IOException | IllegalArgumentException e) {
+			return null;
+		}
+		String sha1 = properties.getProperty("sha1");
+		String sha256 = properties.getProperty("sha256");
+		if(sha1 == null || sha256 == null || !String.valueOf(file.length()).equals(properties.getProperty("size")) || !String.valueOf(file.lastModified()).equals(properties.getProperty("modified")))
+			return null;
+		return new String[] {sha1, sha256};
+	}
+	
+	/*
+	 * Cache the digests of a jar next to it, with its size and last modified time to detect changes.
+	 */
+	private static void writeDigests(File file, String[] hashes) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("sha1", hashes[0]);
+		properties.setProperty("sha256", hashes[1]);
+		properties.setProperty("size", String.valueOf(file.length()));
+		properties.setProperty("modified", String.valueOf(file.lastModified()));
+		File digests = getDigestsFile(file);
+		Path temp = Files.createTempFile(digests.getAbsoluteFile().getParentFile().toPath(), digests.getName() + ".", ".part");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				properties.store(out, null);
+			}
+			move(temp, digests.toPath());
+		} catch (IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the file caching the digests of a jar.
+	 * @param file The jar file.
+	 * @return The digests file next to the jar file.
+	 */
+	public static File getDigestsFile(File file) {
+		return new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".digests");
+	}
+	
+	/*
+	 * Rename a file into place atomically, if the file system supports it.
+	 */
+	static void move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/*
+	 * Check a jar is a zip file with a readable central directory, and at least one entry.
+	 */
+	private static boolean isZip(File file) {
+		try (ZipFile zip = new ZipFile(file)) {
+			return zip.size() > 0;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	private static void drain(InputStream in) throws IOException {
+		if(in == null)
+			return;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		while(in.read(buffer) != -1);
+	}
+	
+	/*
+	 * Open a connection to a URL, failing on any unsuccessful HTTP response.
+	 */
+	private InputStream open(URL url, Dependency dependency) throws IOException {
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(this.connectTimeout);
+		connection.setReadTimeout(this.readTimeout);
+		if(connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			int code = http.getResponseCode();
+			if(code != HttpURLConnection.HTTP_OK) {
+				//Drain the error response, so the connection can be kept alive.
+				try (InputStream error = http.getErrorStream()) {
+					drain(error);
+				}
+				throw new IOException("Unable to download dependency: " + dependency.toString() + " (HTTP " + code + " from " + url + ")");
+			}
+		}
+		InputStream in = connection.getInputStream();
+		this.listener.onStart(dependency, connection.getContentLengthLong());
+		return in;
+	}
+
+}
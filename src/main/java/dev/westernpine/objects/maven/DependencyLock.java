@@ -0,0 +1,179 @@
+package dev.westernpine.objects.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import dev.westernpine.objects.Digests;
+
+/**
+ * A lockfile of a resolved dependency set: the exact coordinates, local paths, sizes and hashes of every jar.
+ * While the declared dependencies don't change and the jars are still on disk, the jars can be loaded straight from the lockfile, without resolving, building URLs, or touching any repository.
+ * @author WesternPine
+ * 
+ */
+public class DependencyLock {
+	
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	
+	/**
+	 * Load the lockfile of a declared dependency set, or start an empty lockfile if the file doesn't exist or can't be read.
+	 * @param file The lockfile.
+	 * @param dependencies The declared dependencies, before any resolution.
+	 * @return The loaded lockfile.
+	 */
+	public static DependencyLock load(File file, Collection<Dependency> dependencies) {
+		DependencyLock lock = new DependencyLock(file, declare(dependencies));
+		if(file.isFile()) {
+			try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				Data data = GSON.fromJson(reader, Data.class);
+				if(data != null && data.declared != null && data.locked != null)
+					lock.data = data;
+			} catch (IOException | JsonParseException e) {
+				//A corrupt lockfile is resolved again.
+			}
+		}
+		return lock;
+	}
+	
+	private final File file;
+	
+	private final List<String> declared;
+	
+	private Data data;
+	
+	private DependencyLock(File file, List<String> declared) {
+		this.file = file;
+		this.declared = declared;
+	}
+	
+	/**
+	 * 
+	 * @return The lockfile.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+	
+	/**
+	 * Check if this lockfile was written for the same declared dependencies, and every locked jar is still on disk with the same size and SHA-256 hash.
+	 * Hashes come from the digests the downloader caches next to each jar while it's unchanged, so a jar is only hashed again if it changed, or has no cached digests.
+	 * @return True if the locked jars can be loaded as they are.
+	 */
+	public boolean isValid() {
+		if(this.data == null || !this.data.declared.equals(this.declared))
+			return false;
+		for(Locked locked : this.data.locked) {
+			File jar = new File(locked.path);
+			if(!jar.isFile() || jar.length() != locked.size || locked.sha256 == null)
+				return false;
+			String[] digests = DependencyDownloader.readDigests(jar);
+			String sha256;
+			try {
+				sha256 = digests == null ? Digests.hash(jar, Digests.SHA_256) : digests[1];
+			} catch (IOException e) {
+				return false;
+			}
+			if(!locked.sha256.equalsIgnoreCase(sha256))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * 
+	 * @return The locked jar files, in order of resolution.
+	 */
+	public List<File> getFiles() {
+		List<File> files = new ArrayList<>();
+		if(this.data != null)
+			this.data.locked.forEach(locked -> files.add(new File(locked.path)));
+		return files;
+	}
+	
+	/**
+	 * Lock the resolved dependency set of the declared dependencies, using the digests the downloader cached next to each jar, and only hashing jars without them.
+	 * @param resolved Every resolved dependency with its downloaded jar file, in order of resolution.
+	 * @return This same object.
+	 * @throws IOException If a jar can't be hashed.
+	 */
+	public DependencyLock lock(Map<Dependency, File> resolved) throws IOException {
+		Data data = new Data();
+		data.declared = this.declared;
+		data.locked = new ArrayList<>();
+		for(Map.Entry<Dependency, File> entry : resolved.entrySet()) {
+			Locked locked = new Locked();
+			locked.coordinates = entry.getKey().getCoordinates();
+			locked.repository = entry.getKey().repository.url;
+			locked.path = entry.getValue().getAbsolutePath();
+			locked.size = entry.getValue().length();
+			String[] digests = DependencyDownloader.readDigests(entry.getValue());
+			locked.sha256 = digests == null ? Digests.hash(entry.getValue(), Digests.SHA_256) : digests[1];
+			data.locked.add(locked);
+		}
+		this.data = data;
+		return this;
+	}
+	
+	/**
+	 * Write the lockfile.
+	 * @throws IOException If the lockfile can't be written.
+	 */
+	public void save() throws IOException {
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		if(parent != null)
+			parent.mkdirs();
+		File temp = new File(parent, this.file.getName() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			GSON.toJson(this.data, writer);
+		}
+		DependencyDownloader.move(temp.toPath(), this.file.toPath());
+	}
+	
+	/*
+	 * Identify declared dependencies by coordinates, repository and pinned checksum, in order.
+	 */
+	private static List<String> declare(Collection<Dependency> dependencies) {
+		List<String> declared = new ArrayList<>();
+		for(Dependency dependency : dependencies)
+			declared.add(dependency.getCoordinates() + "@" + dependency.repository.url + (dependency.checksum == null ? "" : "#" + dependency.checksum));
+		return declared;
+	}
+	
+	/*
+	 * The serialized form of the lockfile.
+	 */
+	private static class Data {
+		
+		private List<String> declared;
+		
+		private List<Locked> locked;
+	
+	}
+	
+	private static class Locked {
+		
+		private String coordinates;
+		
+		private String repository;
+		
+		private String path;
+		
+		private long size;
+		
+		private String sha256;
+	
+	}
+
+}
@@ -0,0 +1,645 @@
+package dev.westernpine.objects.maven;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import dev.westernpine.objects.Digests;
+
+/**
+ * Resolves the transitive dependencies of a set of dependencies from their POM files, as maven would for the compile and runtime scopes.
+ * Parent POMs, properties, and dependencyManagement (including imported BOMs) are applied, and conflicting versions are mediated nearest-wins: the version closest to the given dependencies is used, and the first declared wins a tie.
+ * Downloaded POM files and every resolved graph are cached on disk, so resolving the same dependencies again doesn't touch the network or parse any POM. Snapshot versions are never cached.
+ * @author WesternPine
+ * 
+ */
+public class DependencyResolver {
+	
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	
+	private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)\\}");
+	
+	private static final int MAX_PARENTS = 32;
+	
+	private final File cacheDirectory;
+	
+	private final Map<String, Pom> poms = new ConcurrentHashMap<>();
+	
+	private final Map<String, Pom> rawPoms = new ConcurrentHashMap<>();
+	
+	private int connectTimeout = 10_000;
+	
+	private int readTimeout = 30_000;
+	
+	/**
+	 * Create a resolver.
+	 * @param cacheDirectory The directory to cache POM files and resolved graphs in.
+	 */
+	public DependencyResolver(File cacheDirectory) {
+		this.cacheDirectory = new File(cacheDirectory.getAbsolutePath());
+	}
+	
+	/**
+	 * Set the timeouts of every connection.
+	 * @param connectTimeout The maximum time to connect, in milliseconds.
+	 * @param readTimeout The maximum time to wait for more data, in milliseconds.
+	 * @return This same object.
+	 */
+	public DependencyResolver withTimeouts(int connectTimeout, int readTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		return this;
+	}
+	
+	/**
+	 * Resolve dependencies and all their transitive compile and runtime dependencies.
+	 * Transitive dependencies are looked for in the repository of the dependency requiring them, then in Maven Central.
+	 * @param dependencies The dependencies to resolve.
+	 * @return Copies of the given dependencies followed by their transitive dependencies, nearest first, with one version of each artifact. The given dependencies aren't changed.
+	 * @throws IOException If a POM file couldn't be downloaded or parsed.
+	 */
+	public List<Dependency> resolve(Collection<Dependency> dependencies) throws IOException {
+		List<String> roots = new ArrayList<>();
+		boolean snapshot = false;
+		for(Dependency dependency : dependencies) {
+			roots.add(dependency.getCoordinates() + "@" + dependency.repository.url);
+			snapshot |= isSnapshot(dependency.version);
+		}
+		File graphFile = new File(this.cacheDirectory, "resolved-" + Digests.toHex(Digests.newDigest(Digests.SHA_256).digest(String.join("\n", roots).getBytes(StandardCharsets.UTF_8))).substring(0, 32) + ".json");
+		if(!snapshot) {
+			List<Dependency> cached = readGraph(graphFile, roots);
+			if(cached != null) {
+				pin(cached, dependencies);
+				return cached;
+			}
+		}
+		Graph graph = new Graph();
+		graph.roots = roots;
+		graph.resolved = new ArrayList<>();
+		List<Dependency> resolved = new ArrayList<>();
+		Map<String, Dependency> seen = new HashMap<>();
+		Deque<Step> queue = new ArrayDeque<>();
+		for(Dependency dependency : dependencies) {
+			//Resolve a copy, so the repository of the given dependency isn't changed by the fallback to Maven Central.
+			Dependency copy = new Dependency(dependency.groupId, dependency.artifactId, dependency.version).withRepository(dependency.repository).withChecksum(dependency.checksum);
+			if(seen.putIfAbsent(copy.groupId + ":" + copy.artifactId, copy) == null)
+				queue.add(new Step(copy, null, Collections.emptyList()));
+		}
+		//Breadth first, so the first version seen of an artifact is the nearest one.
+		while(!queue.isEmpty()) {
+			Step step = queue.poll();
+			Dependency dependency = step.dependency;
+			resolved.add(dependency);
+			snapshot |= isSnapshot(dependency.version);
+			Pom pom = getPom(dependency);
+			dependency.repository = pom.repository;
+			//Cached with the repository the POM was found in, which is Maven Central for a fallback.
+			graph.resolved.add(new Resolved(dependency, step.requiredBy));
+			for(Declared declared : pom.dependencies) {
+				if(declared.optional || !declared.isRuntime() || declared.classifier != null || !"jar".equals(declared.type) || declared.isExcluded(step.exclusions))
+					continue;
+				String version = declared.version != null ? declared.version : pom.getManagedVersion(declared);
+				if(version == null)
+					throw new IOException("Unable to find the version of " + declared.groupId + ":" + declared.artifactId + " required by " + dependency.getCoordinates());
+				Dependency transitive = new Dependency(declared.groupId, declared.artifactId, lowerBound(version)).withRepository(dependency.repository);
+				if(seen.putIfAbsent(declared.groupId + ":" + declared.artifactId, transitive) != null)
+					continue;
+				List<String[]> exclusions = new ArrayList<>(step.exclusions);
+				exclusions.addAll(declared.exclusions);
+				queue.add(new Step(transitive, dependency.getCoordinates(), exclusions));
+			}
+		}
+		if(!snapshot)
+			writeGraph(graphFile, graph);
+		return resolved;
+	}
+	
+	/*
+	 * Get the effective POM of a dependency, with its parents, properties and imported BOMs applied.
+	 */
+	private Pom getPom(Dependency dependency) throws IOException {
+		return getPom(dependency, 0);
+	}
+	
+	private Pom getPom(Dependency dependency, int depth) throws IOException {
+		Pom pom = this.poms.get(dependency.getCoordinates());
+		if(pom != null)
+			return pom;
+		//Interpolate once the whole parent chain is merged, so inherited values use the properties and coordinates of this POM, as Maven does.
+		pom = getRawPom(dependency, depth).copy();
+		pom.interpolate();
+		List<Declared> imports = new ArrayList<>();
+		for(Declared managed : pom.managed) {
+			if("import".equals(managed.scope) && "pom".equals(managed.type) && managed.version != null)
+				imports.add(managed);
+		}
+		for(Declared imported : imports) {
+			Pom bom = getPom(new Dependency(imported.groupId, imported.artifactId, imported.version).withRepository(pom.repository), depth + 1);
+			pom.managed.remove(imported);
+			for(Declared managed : bom.managed) {
+				if(pom.getManaged(managed) == null)
+					pom.managed.add(managed);
+			}
+		}
+		this.poms.put(dependency.getCoordinates(), pom);
+		return pom;
+	}
+	
+	/*
+	 * Get the POM of a dependency merged with its parents, before any properties are replaced.
+	 */
+	private Pom getRawPom(Dependency dependency, int depth) throws IOException {
+		Pom pom = this.rawPoms.get(dependency.getCoordinates());
+		if(pom != null)
+			return pom;
+		if(depth > MAX_PARENTS)
+			throw new IOException("Too many parent POMs above " + dependency.getCoordinates());
+		Repository repository = dependency.repository;
+		byte[] bytes = fetch(dependency);
+		pom = parse(bytes, dependency);
+		pom.repository = dependency.repository;
+		dependency.repository = repository;
+		if(pom.parent != null)
+			pom.inherit(getRawPom(new Dependency(pom.parent[0], pom.parent[1], pom.parent[2]).withRepository(pom.repository), depth + 1));
+		this.rawPoms.put(dependency.getCoordinates(), pom);
+		return pom;
+	}
+	
+	/*
+	 * Get the POM file contents of a dependency, from the cache directory, or else from its repository or Maven Central.
+	 * If the POM file is only found in Maven Central, the repository of the dependency is set to Maven Central.
+	 */
+	private byte[] fetch(Dependency dependency) throws IOException {
+		boolean snapshot = isSnapshot(dependency.version);
+		List<Repository> repositories = new ArrayList<>();
+		repositories.add(dependency.repository);
+		if(!dependency.repository.url.equals(Repository.MAVEN_CENTRAL_REPOSITORY.url))
+			repositories.add(Repository.MAVEN_CENTRAL_REPOSITORY);
+		if(!snapshot) {
+			for(Repository repository : repositories) {
+				File file = getCacheFile(repository, dependency);
+				if(file.isFile()) {
+					dependency.repository = repository;
+					return Files.readAllBytes(file.toPath());
+				}
+			}
+		}
+		FileNotFoundException missing = null;
+		for(Repository repository : repositories) {
+			byte[] bytes;
+			try {
+				bytes = download(new Dependency(dependency.groupId, dependency.artifactId, dependency.version).withRepository(repository).getPomUrl());
+			} catch (FileNotFoundException e) {
+				missing = e;
+				continue;
+			}
+			dependency.repository = repository;
+			if(!snapshot) {
+				File file = getCacheFile(repository, dependency);
+				file.getParentFile().mkdirs();
+				File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+				Files.write(temp.toPath(), bytes);
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			return bytes;
+		}
+		throw new IOException("Unable to find POM file of " + dependency.getCoordinates(), missing);
+	}
+	
+	/*
+	 * The cached POM file of a dependency from a repository.
+	 */
+	private File getCacheFile(Repository repository, Dependency dependency) {
+		String path = repository.url.replaceAll("[^A-Za-z0-9.-]+", "_") + "/" + dependency.groupId.replace('.', '/') + "/" + dependency.artifactId + "/" + dependency.version + "/" + dependency.artifactId + "-" + dependency.version + ".pom";
+		return new File(new File(this.cacheDirectory, "poms"), path);
+	}
+	
+	/*
+	 * Download a URL fully, keeping the connection alive for the next POM.
+	 */
+	private byte[] download(URL url) throws IOException {
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(this.connectTimeout);
+		connection.setReadTimeout(this.readTimeout);
+		if(connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			int code = http.getResponseCode();
+			if(code != HttpURLConnection.HTTP_OK) {
+				try (InputStream error = http.getErrorStream()) {
+					if(error != null)
+						readFully(error);
+				}
+				if(code == HttpURLConnection.HTTP_NOT_FOUND)
+					throw new FileNotFoundException(url.toString());
+				throw new IOException("Unable to download POM file: " + url + " (HTTP " + code + ")");
+			}
+		}
+		try (InputStream in = connection.getInputStream()) {
+			return readFully(in);
+		}
+	}
+	
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for(int read; (read = in.read(buffer)) != -1;)
+			out.write(buffer, 0, read);
+		return out.toByteArray();
+	}
+	
+	/*
+	 * Parse the raw values of a POM file, before parents and properties are applied.
+	 */
+	private static Pom parse(byte[] bytes, Dependency dependency) throws IOException {
+		Element project;
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			factory.setExpandEntityReferences(false);
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			project = builder.parse(new ByteArrayInputStream(bytes)).getDocumentElement();
+		} catch (ParserConfigurationException | SAXException e) {
+			throw new IOException("Unable to parse POM file of " + dependency.getCoordinates(), e);
+		}
+		Pom pom = new Pom();
+		Element parent = child(project, "parent");
+		if(parent != null)
+			pom.parent = new String[] {text(parent, "groupId"), text(parent, "artifactId"), text(parent, "version")};
+		pom.groupId = text(project, "groupId") != null ? text(project, "groupId") : parent == null ? dependency.groupId : pom.parent[0];
+		pom.artifactId = text(project, "artifactId");
+		pom.version = text(project, "version") != null ? text(project, "version") : parent == null ? dependency.version : pom.parent[2];
+		Element properties = child(project, "properties");
+		if(properties != null) {
+			for(Element property : children(properties))
+				pom.properties.put(property.getTagName(), property.getTextContent().trim());
+		}
+		Element management = child(project, "dependencyManagement");
+		if(management != null)
+			pom.managed.addAll(declared(child(management, "dependencies")));
+		pom.dependencies.addAll(declared(child(project, "dependencies")));
+		return pom;
+	}
+	
+	private static List<Declared> declared(Element dependencies) {
+		List<Declared> declared = new ArrayList<>();
+		if(dependencies == null)
+			return declared;
+		for(Element element : children(dependencies)) {
+			if(!element.getTagName().equals("dependency"))
+				continue;
+			Declared dependency = new Declared();
+			dependency.groupId = text(element, "groupId");
+			dependency.artifactId = text(element, "artifactId");
+			dependency.version = text(element, "version");
+			dependency.scope = text(element, "scope");
+			dependency.type = text(element, "type");
+			dependency.classifier = text(element, "classifier");
+			dependency.optionalText = text(element, "optional");
+			Element exclusions = child(element, "exclusions");
+			if(exclusions != null) {
+				for(Element exclusion : children(exclusions))
+					dependency.exclusions.add(new String[] {text(exclusion, "groupId"), text(exclusion, "artifactId")});
+			}
+			declared.add(dependency);
+		}
+		return declared;
+	}
+	
+	private static List<Element> children(Element element) {
+		List<Element> children = new ArrayList<>();
+		for(Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if(node instanceof Element)
+				children.add((Element) node);
+		}
+		return children;
+	}
+	
+	private static Element child(Element element, String name) {
+		for(Element child : children(element)) {
+			if(child.getTagName().equals(name))
+				return child;
+		}
+		return null;
+	}
+	
+	private static String text(Element element, String name) {
+		Element child = child(element, name);
+		return child == null ? null : child.getTextContent().trim();
+	}
+	
+	private static boolean isSnapshot(String version) {
+		return version != null && version.endsWith("-SNAPSHOT");
+	}
+	
+	/*
+	 * Pick the lowest version of a version range, or the version itself if it isn't a range.
+	 */
+	private static String lowerBound(String version) {
+		if(!version.startsWith("[") && !version.startsWith("("))
+			return version;
+		String bounds = version.substring(1, version.length() - 1);
+		String lower = bounds.split(",", -1)[0].trim();
+		if(!lower.isEmpty())
+			return lower;
+		String[] parts = bounds.split(",", -1);
+		return parts[parts.length - 1].trim();
+	}
+	
+	/*
+	 * Read a cached resolved graph, or null if it doesn't exist or doesn't match the roots.
+	 */
+	private static List<Dependency> readGraph(File file, List<String> roots) {
+		if(!file.isFile())
+			return null;
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			Graph graph = GSON.fromJson(reader, Graph.class);
+			if(graph == null || graph.resolved == null || !roots.equals(graph.roots))
+				return null;
+			List<Dependency> resolved = new ArrayList<>();
+			for(Resolved node : graph.resolved)
+				resolved.add(new Dependency(node.groupId, node.artifactId, node.version).withRepository(new Repository(node.repositoryName, node.repositoryUrl)));
+			return resolved;
+		} catch (IOException | JsonParseException e) {
+			return null;
+		}
+	}
+	
+	/*
+	 * Apply the pinned checksums of the requested dependencies to a cached graph, which doesn't store them.
+	 */
+	private static void pin(List<Dependency> resolved, Collection<Dependency> dependencies) {
+		for(Dependency dependency : dependencies) {
+			if(dependency.checksum == null)
+				continue;
+			for(Dependency node : resolved) {
+				if(node.groupId.equals(dependency.groupId) && node.artifactId.equals(dependency.artifactId))
+					node.withChecksum(dependency.checksum);
+			}
+		}
+	}
+	
+	private static void writeGraph(File file, Graph graph) throws IOException {
+		file.getParentFile().mkdirs();
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			GSON.toJson(graph, writer);
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/*
+	 * A dependency waiting to be resolved, with the exclusions of every dependency on its path.
+	 */
+	private static class Step {
+		
+		private final Dependency dependency;
+		
+		private final String requiredBy;
+		
+		private final List<String[]> exclusions;
+		
+		private Step(Dependency dependency, String requiredBy, List<String[]> exclusions) {
+			this.dependency = dependency;
+			this.requiredBy = requiredBy;
+			this.exclusions = exclusions;
+		}
+	
+	}
+	
+	/*
+	 * The values of a POM file needed for resolution.
+	 */
+	private static class Pom {
+		
+		private String groupId;
+		
+		private String artifactId;
+		
+		private String version;
+		
+		private String[] parent;
+		
+		private Repository repository;
+		
+		private Map<String, String> properties = new LinkedHashMap<>();
+		
+		private List<Declared> managed = new ArrayList<>();
+		
+		private List<Declared> dependencies = new ArrayList<>();
+		
+		/*
+		 * Copy this POM, so it can be interpolated without changing the raw POM its children inherit from.
+		 */
+		private Pom copy() {
+			Pom pom = new Pom();
+			pom.groupId = this.groupId;
+			pom.artifactId = this.artifactId;
+			pom.version = this.version;
+			pom.parent = this.parent;
+			pom.repository = this.repository;
+			pom.properties.putAll(this.properties);
+			pom.managed.addAll(this.managed);
+			pom.dependencies.addAll(this.dependencies);
+			return pom;
+		}
+		
+		/*
+		 * Add the properties, managed dependencies and dependencies of the parent not declared by this POM.
+		 */
+		private void inherit(Pom parent) {
+			parent.properties.forEach(this.properties::putIfAbsent);
+			this.properties.putIfAbsent("project.parent.groupId", parent.groupId);
+			this.properties.putIfAbsent("project.parent.version", parent.version);
+			for(Declared managed : parent.managed) {
+				if(getManaged(managed) == null)
+					this.managed.add(managed);
+			}
+			for(Declared dependency : parent.dependencies) {
+				if(this.dependencies.stream().noneMatch(declared -> declared.isSameArtifact(dependency)))
+					this.dependencies.add(dependency);
+			}
+		}
+		
+		/*
+		 * Replace the ${...} properties of every value of this POM.
+		 */
+		private void interpolate() {
+			Map<String, String> values = new HashMap<>(this.properties);
+			values.put("project.groupId", this.groupId);
+			values.put("project.version", this.version);
+			values.put("project.artifactId", this.artifactId);
+			values.put("pom.groupId", this.groupId);
+			values.put("pom.version", this.version);
+			values.put("version", this.version);
+			this.groupId = interpolate(this.groupId, values);
+			this.version = interpolate(this.version, values);
+			values.put("project.groupId", this.groupId);
+			values.put("project.version", this.version);
+			for(List<Declared> list : Arrays.asList(this.managed, this.dependencies)) {
+				for(int i = 0; i < list.size(); i++)
+					list.set(i, list.get(i).interpolate(values));
+			}
+		}
+		
+		private static String interpolate(String value, Map<String, String> values) {
+			//Properties may refer to other properties, so replace a few levels deep.
+			for(int pass = 0; value != null && pass < 8 && value.contains("${"); pass++) {
+				Matcher matcher = PROPERTY.matcher(value);
+				StringBuffer buffer = new StringBuffer();
+				while(matcher.find()) {
+					String replacement = values.get(matcher.group(1));
+					matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement == null ? matcher.group() : replacement));
+				}
+				matcher.appendTail(buffer);
+				if(buffer.toString().equals(value))
+					break;
+				value = buffer.toString();
+			}
+			return value;
+		}
+		
+		private Declared getManaged(Declared dependency) {
+			for(Declared managed : this.managed) {
+				if(managed.isSameArtifact(dependency))
+					return managed;
+			}
+			return null;
+		}
+		
+		private String getManagedVersion(Declared dependency) {
+			Declared managed = getManaged(dependency);
+			return managed == null ? null : managed.version;
+		}
+	
+	}
+	
+	/*
+	 * A dependency as declared in a POM file.
+	 */
+	private static class Declared {
+		
+		private String groupId;
+		
+		private String artifactId;
+		
+		private String version;
+		
+		private String scope;
+		
+		private String type;
+		
+		private String classifier;
+		
+		private String optionalText;
+		
+		private boolean optional;
+		
+		private List<String[]> exclusions = new ArrayList<>();
+		
+		private Declared interpolate(Map<String, String> values) {
+			Declared declared = new Declared();
+			declared.groupId = Pom.interpolate(this.groupId, values);
+			declared.artifactId = Pom.interpolate(this.artifactId, values);
+			declared.version = Pom.interpolate(this.version, values);
+			declared.scope = Pom.interpolate(this.scope, values);
+			declared.type = this.type == null ? "jar" : Pom.interpolate(this.type, values);
+			declared.classifier = Pom.interpolate(this.classifier, values);
+			declared.optionalText = Pom.interpolate(this.optionalText, values);
+			declared.optional = "true".equals(declared.optionalText);
+			for(String[] exclusion : this.exclusions)
+				declared.exclusions.add(new String[] {Pom.interpolate(exclusion[0], values), Pom.interpolate(exclusion[1], values)});
+			return declared;
+		}
+		
+		private boolean isRuntime() {
+			return this.scope == null || this.scope.equals("compile") || this.scope.equals("runtime");
+		}
+		
+		private boolean isSameArtifact(Declared other) {
+			return this.groupId != null && this.groupId.equals(other.groupId) && this.artifactId != null && this.artifactId.equals(other.artifactId) && (this.classifier == null ? other.classifier == null : this.classifier.equals(other.classifier));
+		}
+		
+		private boolean isExcluded(List<String[]> exclusions) {
+			for(String[] exclusion : exclusions) {
+				if(("*".equals(exclusion[0]) || this.groupId.equals(exclusion[0])) && ("*".equals(exclusion[1]) || this.artifactId.equals(exclusion[1])))
+					return true;
+			}
+			return false;
+		}
+	
+	}
+	
+	/*
+	 * The serialized form of a resolved graph.
+	 */
+	private static class Graph {
+		
+		private List<String> roots;
+		
+		private List<Resolved> resolved;
+	
+	}
+	
+	private static class Resolved {
+		
+		private String groupId;
+		
+		private String artifactId;
+		
+		private String version;
+		
+		private String repositoryName;
+		
+		private String repositoryUrl;
+		
+		private String requiredBy;
+		
+		private Resolved(Dependency dependency, String requiredBy) {
+			this.groupId = dependency.groupId;
+			this.artifactId = dependency.artifactId;
+			this.version = dependency.version;
+			this.repositoryName = dependency.repository.name;
+			this.repositoryUrl = dependency.repository.url;
+			this.requiredBy = requiredBy;
+		}
+	
+	}
+
+}
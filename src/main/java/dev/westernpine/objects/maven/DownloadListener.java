@@ -0,0 +1,42 @@
+package dev.westernpine.objects.maven;
+
+import java.io.File;
+
+/**
+ * Receives the progress of dependency downloads. One listener is shared by every download of a batch, so it's called from many threads at once.
+ * @author WesternPine
+ * 
+ */
+public interface DownloadListener {
+	
+	/**
+	 * Called once a dependency starts downloading.
+	 * @param dependency The dependency being downloaded.
+	 * @param contentLength The size of the download in bytes, or -1 if unknown.
+	 */
+	default void onStart(Dependency dependency, long contentLength) {}
+	
+	/**
+	 * Called every time more of a dependency was downloaded.
+	 * @param dependency The dependency being downloaded.
+	 * @param bytes The total amount of bytes downloaded so far.
+	 */
+	default void onProgress(Dependency dependency, long bytes) {}
+	
+	/**
+	 * Called once a dependency is available on disk.
+	 * @param dependency The dependency.
+	 * @param file The jar file of the dependency.
+	 * @param bytes The amount of bytes downloaded, or 0 if the jar was already on disk.
+	 * @param nanos The time taken to download the dependency, in nanoseconds.
+	 */
+	default void onComplete(Dependency dependency, File file, long bytes, long nanos) {}
+	
+	/**
+	 * Called if a dependency couldn't be downloaded.
+	 * @param dependency The dependency.
+	 * @param throwable The reason the download failed.
+	 */
+	default void onFailure(Dependency dependency, Throwable throwable) {}
+
+}
@@ -0,0 +1,176 @@
+package dev.westernpine.objects.module;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import dev.westernpine.objects.classloaders.JarClassLoader;
+
+/**
+ * An on-disk profile of the classes a module's loader defined, in order, so they can be preloaded in parallel on the next start instead of on first use.
+ * @author WesternPine
+ * 
+ */
+public class ClassProfile {
+	
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	
+	/**
+	 * The amount of threads of the shared preloading pool.
+	 */
+	public static final int DEFAULT_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+	
+	/**
+	 * Get the profile file of a module.
+	 * @param directory The directory of the profile files.
+	 * @param moduleName The name of the module.
+	 * @return The profile file of the module in the directory.
+	 */
+	public static File getFile(File directory, String moduleName) {
+		return new File(directory, moduleName.replaceAll("[^A-Za-z0-9._-]", "_") + ".classes.json");
+	}
+	
+	/**
+	 * Load a profile file, or start an empty profile if the file doesn't exist or can't be read.
+	 * @param file The profile file.
+	 * @return The loaded profile.
+	 */
+	public static ClassProfile load(File file) {
+		ClassProfile profile = new ClassProfile(file);
+		if(file.isFile()) {
+			try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				Data data = GSON.fromJson(reader, Data.class);
+				if(data != null && data.classes != null)
+					profile.classes = data.classes;
+			} catch (IOException | JsonParseException e) {
+				//A corrupt profile is recorded again.
+			}
+		}
+		return profile;
+	}
+	
+	private final File file;
+	
+	private List<String> classes = new ArrayList<>();
+	
+	private ClassProfile(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * 
+	 * @return The profile file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+	
+	/**
+	 * 
+	 * @return The names of the profiled classes, in order of definition.
+	 */
+	public List<String> getClasses() {
+		return this.classes;
+	}
+	
+	/**
+	 * Set the names of the profiled classes.
+	 * @param classes The names of the classes, in order of definition.
+	 * @return This same object.
+	 */
+	public ClassProfile setClasses(List<String> classes) {
+		this.classes = new ArrayList<>(classes);
+		return this;
+	}
+	
+	/**
+	 * Preload the profiled classes with a loader on the shared preloading pool. See {@link #preload(JarClassLoader, Executor, int)}.
+	 * @param loader The loader to define the classes with.
+	 * @return A future completing with the amount of classes defined by the loader.
+	 */
+	public CompletableFuture<Integer> preload(JarClassLoader loader) {
+		return preload(loader, Preloader.INSTANCE, DEFAULT_PARALLELISM);
+	}
+	
+	/**
+	 * Preload the profiled classes with a loader, without initializing them. The classes are split into contiguous runs loaded in parallel, each in profiled order, so classes are mostly defined after the classes they depend on.
+	 * Stale entries, whose class files are no longer in the loader's own jars, are skipped, and preloading stops once the loader is closed.
+	 * @param loader The loader to define the classes with.
+	 * @param executor The executor to preload on.
+	 * @param parallelism The maximum amount of runs preloaded at once.
+	 * @return A future completing with the amount of classes defined by the loader.
+	 */
+	public CompletableFuture<Integer> preload(JarClassLoader loader, Executor executor, int parallelism) {
+		List<String> classes = this.classes;
+		int runs = Math.max(1, Math.min(parallelism, classes.size()));
+		AtomicInteger loaded = new AtomicInteger();
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[runs];
+		for(int run = 0; run < runs; run++) {
+			List<String> names = classes.subList(classes.size() * run / runs, classes.size() * (run + 1) / runs);
+			futures[run] = CompletableFuture.runAsync(() -> {
+				for(String name : names) {
+					if(loader.preload(name))
+						loaded.incrementAndGet();
+				}
+			}, executor);
+		}
+		return CompletableFuture.allOf(futures).thenApply(ignored -> loaded.get());
+	}
+	
+	/**
+	 * Write the profile file.
+	 * @throws IOException If the profile file can't be written.
+	 */
+	public void save() throws IOException {
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		if(parent != null)
+			parent.mkdirs();
+		File temp = new File(parent, this.file.getName() + ".tmp");
+		Data data = new Data();
+		data.classes = this.classes;
+		try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			GSON.toJson(data, writer);
+		}
+		Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/*
+	 * The daemon threads preloading classes, started on first use.
+	 */
+	private static class Preloader {
+		
+		private static final AtomicInteger THREADS = new AtomicInteger();
+		
+		private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(DEFAULT_PARALLELISM, runnable -> {
+			Thread thread = new Thread(runnable, "JarLoader-Preload-" + THREADS.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	
+	}
+	
+	/*
+	 * The serialized form of the profile file.
+	 */
+	private static class Data {
+		
+		private List<String> classes;
+	
+	}
+
+}
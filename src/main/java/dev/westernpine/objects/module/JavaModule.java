@@ -1,6 +1,5 @@
 package dev.westernpine.objects.module;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -9,16 +8,27 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
 import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -26,6 +36,8 @@ import com.google.gson.JsonParser;
 import dev.westernpine.JarLoader;
 import dev.westernpine.exceptions.InvalidJarFileException;
 import dev.westernpine.exceptions.ModuleLoadException;
+import dev.westernpine.objects.Futures;
+import dev.westernpine.objects.classloaders.DelegationMode;
 import dev.westernpine.objects.classloaders.JarClassLoader;
 
 public class JavaModule {
@@ -52,6 +64,17 @@ public class JavaModule {
 	
 	private Object instance;
 	
+	private volatile CompletableFuture<Integer> preloading = CompletableFuture.completedFuture(0);
+	
+	private final AtomicReference<CompletableFuture<Void>> activation = new AtomicReference<>();
+	
+	private volatile Thread activator;
+	
+	//The module each thread waits on to finish activating, to detect threads activating modules that wait on each other.
+	private static final Map<Thread, JavaModule> waitingOn = new ConcurrentHashMap<>();
+	
+	private static final long ACTIVATION_WAIT_MILLIS = 50;
+	
 	public Consumer<JavaModule> onLoad = module -> {};
 	
 	public Consumer<JavaModule> onUnload = module -> {};
@@ -75,26 +98,58 @@ public class JavaModule {
 		}
 		
 		
-		try (JarInputStream in = new JarInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
-			JarEntry entry;
-			while ((entry = in.getNextJarEntry()) != null) {
-				if (entry.getName().equals(MODULE_JSON_FILENAME)) {
-					try (Reader pluginInfoReader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
-						JsonObject moduleJson = JsonParser.parseReader(pluginInfoReader).getAsJsonObject();
-						this.name = Optional.ofNullable(moduleJson.get("name")).map(object -> object.isJsonNull() ? null : object.getAsString()).orElse(null);
-						this.main = Optional.ofNullable(moduleJson.get("main")).map(object -> object.isJsonNull() ? null : object.getAsString()).orElse(null);
-						this.version = Optional.ofNullable(moduleJson.get("version")).map(object -> object.isJsonNull() ? null : object.getAsString()).orElse(null);
-						this.softDepends =  Optional.ofNullable(moduleJson.get("softdepends")).map(object -> object.isJsonNull() ? null : object.getAsJsonArray()).map(jsonArray -> StreamSupport.stream(jsonArray.spliterator(), false).map(jsonElement -> jsonElement.getAsJsonObject().getAsString()).toArray(String[]::new)).orElse(new String[] {});
-						this.depends =  Optional.ofNullable(moduleJson.get("depends")).map(object -> object.isJsonNull() ? null : object.getAsJsonArray()).map(jsonArray -> StreamSupport.stream(jsonArray.spliterator(), false).map(jsonElement -> jsonElement.getAsJsonObject().getAsString()).toArray(String[]::new)).orElse(new String[] {});
-						break;
-					} catch (Exception e) {
-						throw new ModuleLoadException("Unable to parse " + MODULE_JSON_FILENAME + " for jar: " + file.getName(), e);
-					}
+		//Look the descriptor up through the central directory, instead of inflating every entry before it.
+		try (ZipFile zip = new ZipFile(file)) {
+			ZipEntry entry = zip.getEntry(MODULE_JSON_FILENAME);
+			if (entry != null) {
+				try (Reader pluginInfoReader = new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8)) {
+					JsonObject moduleJson = JsonParser.parseReader(pluginInfoReader).getAsJsonObject();
+					this.name = Optional.ofNullable(moduleJson.get("name")).map(object -> object.isJsonNull() ? null : object.getAsString()).orElse(null);
+					this.main = Optional.ofNullable(moduleJson.get("main")).map(object -> object.isJsonNull() ? null : object.getAsString()).orElse(null);
+					this.version = Optional.ofNullable(moduleJson.get("version")).map(object -> object.isJsonNull() ? null : object.getAsString()).orElse(null);
+					this.softDepends =  Optional.ofNullable(moduleJson.get("softdepends")).map(object -> object.isJsonNull() ? null : object.getAsJsonArray()).map(jsonArray -> StreamSupport.stream(jsonArray.spliterator(), false).map(jsonElement -> jsonElement.getAsString()).toArray(String[]::new)).orElse(new String[] {});
+					this.depends =  Optional.ofNullable(moduleJson.get("depends")).map(object -> object.isJsonNull() ? null : object.getAsJsonArray()).map(jsonArray -> StreamSupport.stream(jsonArray.spliterator(), false).map(jsonElement -> jsonElement.getAsString()).toArray(String[]::new)).orElse(new String[] {});
+				} catch (Exception e) {
+					throw new ModuleLoadException("Unable to parse " + MODULE_JSON_FILENAME + " for jar: " + file.getName(), e);
 				}
 			}
 		} catch (IOException e) {
 			throw new ModuleLoadException("Unable to load jar file contents: " + file.getName(), e);
 		}
+		requireDescriptor();
+	}
+	
+	/**
+	 * A representation of a jar file as an environment, using module.json values that were already read, such as from a {@link ModuleIndex}. The jar file is not opened.
+	 * @param jarLoader The JarLoader to load this module with.
+	 * @param file The jar file of this module.
+	 * @param name The name of this module.
+	 * @param main The main class of this module.
+	 * @param version The version of this module.
+	 * @param depends The modules required for this module to start.
+	 * @param softDepends The modules optionally required for this module to start.
+	 * @throws ModuleLoadException If the file URL is invalid, or a required value is missing.
+	 */
+	public JavaModule(JarLoader jarLoader, File file, String name, String main, String version, String[] depends, String[] softDepends) throws ModuleLoadException {
+		this.jarLoader = jarLoader;
+		try {
+			this.fileUrl = file.toURI().toURL();
+			this.file = file;
+		} catch (MalformedURLException e) {
+			throw new ModuleLoadException("Unable to parse File URL: " + file.getName(), e);
+		}
+		this.name = name;
+		this.main = main;
+		this.version = version;
+		this.depends = depends == null ? new String[] {} : depends;
+		this.softDepends = softDepends == null ? new String[] {} : softDepends;
+		requireDescriptor();
+	}
+	
+	/*
+	 * Make sure all required module.json values are present.
+	 */
+	private void requireDescriptor() throws ModuleLoadException {
 		if(Objects.isNull(name)) {
 			throw new ModuleLoadException("Unable to find required \"name\" json member in " + MODULE_JSON_FILENAME + " for jar: " + file.getName(), new NullPointerException());
 		}
@@ -170,6 +225,14 @@ public class JavaModule {
 		return this.loader;
 	}
 	
+	/**
+	 * 
+	 * @return A future completing with the amount of profiled classes preloaded by the last load of this module, or 0 if it had no class profile.
+	 */
+	public CompletableFuture<Integer> getPreloading() {
+		return this.preloading;
+	}
+	
 	/**
 	 * 
 	 * @return The instance of the main class.
@@ -183,8 +246,67 @@ public class JavaModule {
 	 * @throws ModuleLoadException If an exception occured initializing the module.
 	 */
 	public void load() throws ModuleLoadException {
+		initialize();
+		this.onLoad.accept(this);
+	}
+	
+	/**
+	 * Loads this module on an executor. See {@link #loadAsync(Executor, long, TimeUnit)}.
+	 * @param executor The executor to load this module on.
+	 * @return A future completing with this module once it has loaded.
+	 */
+	public CompletableFuture<JavaModule> loadAsync(Executor executor) {
+		return loadAsync(executor, 0, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Loads this module on an executor. The returned future completes as soon as the main class is initialized, and the onLoad consumer runs afterwards on the common pool, off the loading path.
+	 * If the timeout passes first, the future fails with a TimeoutException, and the module is unloaded again whenever its initialization finishes.
+	 * @param executor The executor to load this module on.
+	 * @param timeout The maximum time to wait for this module to load, or 0 to wait forever.
+	 * @param unit The unit of the timeout.
+	 * @return A future completing with this module once it has loaded, or exceptionally with the ModuleLoadException or TimeoutException.
+	 */
+	public CompletableFuture<JavaModule> loadAsync(Executor executor, long timeout, TimeUnit unit) {
+		CompletableFuture<JavaModule> future = Futures.within(new CompletableFuture<>(), timeout, unit, "Module " + name + " didn't load within " + timeout + " " + unit.toString().toLowerCase());
+		execute(executor, future, () -> {
+			try {
+				initialize();
+			} catch (ModuleLoadException | RuntimeException e) {
+				future.completeExceptionally(e);
+				return;
+			}
+			if(future.complete(this)) {
+				CompletableFuture.runAsync(() -> this.onLoad.accept(this)).exceptionally(throwable -> {
+					throwable.printStackTrace();
+					return null;
+				});
+			} else {
+				//Timed out while initializing.
+				try {
+					discard();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		return future;
+	}
+	
+	/*
+	 * Create the class loader, start preloading the profiled classes, initialize the main class, and register this module as loaded.
+	 */
+	private void initialize() throws ModuleLoadException {
+		activateDependencies();
 		this.loader = jarLoader.newLoader(true);
 		loader.addURL(fileUrl);
+		if(jarLoader.getDelegationMode() == DelegationMode.DEPENDENCIES)
+			loader.setDelegates(getDependencyLoaders());
+		File classProfiles = jarLoader.getClassProfiles();
+		if(classProfiles != null) {
+			loader.startRecording();
+			this.preloading = ClassProfile.load(ClassProfile.getFile(classProfiles, name)).preload(loader);
+		}
 		try {
 			Class<?> clazz = this.loader.loadClass(main);
 			try {
@@ -199,19 +321,211 @@ public class JavaModule {
 		} catch (ClassNotFoundException e) {
 			throw new ModuleLoadException(e.getMessage(), e);
 		}
-		this.onLoad.accept(this);
+		jarLoader.registerModule(this);
+	}
+	
+	/**
+	 * Loads this module lazily, only registering the packages of its classes with the JarLoader. The class loader is created, and the main class initialized, the first time another loader looks for a class in one of those packages.
+	 * If the jar can't be scanned for packages, the module is loaded right away.
+	 * A thread looking for a class of a module another thread is activating waits for it to finish. Only when the activating thread is itself waiting, directly or through other threads, on a module the looking thread is activating, does the looking thread go on without waiting, and may then see the module's classes before its main class finished initializing.
+	 * @throws ModuleLoadException If the module had to be loaded right away, and an exception occured initializing it.
+	 */
+	public void loadLazily() throws ModuleLoadException {
+		Set<String> packageNames = JarClassLoader.scanPackages(fileUrl);
+		if(packageNames == null || packageNames.isEmpty()) {
+			load();
+			return;
+		}
+		this.activation.set(null);
+		jarLoader.registerLazyModule(this, packageNames);
+	}
+	
+	/**
+	 * Loads this module if it was loaded lazily and hasn't been activated yet. Called by the JarLoader when a class of this module is first requested.
+	 * Only the first caller loads the module, without holding any lock. Other threads wait for it to finish, unless the loading thread is waiting on them in turn, see {@link #loadLazily()}.
+	 * @throws ModuleLoadException If an exception occured initializing the module, for the loading thread and every waiting thread.
+	 */
+	public void activate() throws ModuleLoadException {
+		CompletableFuture<Void> activation = new CompletableFuture<>();
+		if(!this.activation.compareAndSet(null, activation)) {
+			activation = this.activation.get();
+			if(activation == null) {
+				//Loaded lazily again since.
+				activate();
+				return;
+			}
+			await(activation);
+			return;
+		}
+		if(!jarLoader.claimLazyModule(this)) {
+			activation.complete(null);
+			return;
+		}
+		//The packages stay registered while loading, so lookups from other threads wait here, while lookups made by this thread return right away.
+		this.activator = Thread.currentThread();
+		try {
+			load();
+			activation.complete(null);
+		} catch (ModuleLoadException | RuntimeException e) {
+			activation.completeExceptionally(e);
+			throw e;
+		} finally {
+			jarLoader.unregisterLazyPackages(this);
+			this.activator = null;
+		}
+	}
+	
+	/*
+	 * Wait for another thread to activate this module, unless that thread waits on this thread, directly or through other threads.
+	 * The wait is checked again every few milliseconds, so a cycle formed after waiting started is still broken.
+	 */
+	private void await(CompletableFuture<Void> activation) throws ModuleLoadException {
+		Thread thread = Thread.currentThread();
+		waitingOn.put(thread, this);
+		try {
+			while(!activation.isDone()) {
+				if(isWaitingOn(thread))
+					return;
+				try {
+					activation.get(ACTIVATION_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					//Check for a cycle again.
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new ModuleLoadException("Interrupted while waiting for module " + name + " to activate", e);
+				} catch (ExecutionException e) {
+					break;
+				}
+			}
+		} finally {
+			waitingOn.remove(thread);
+		}
+		try {
+			activation.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof ModuleLoadException ? (ModuleLoadException) e.getCause() : new ModuleLoadException(e.getCause().getMessage(), e.getCause());
+		}
+	}
+	
+	/*
+	 * Check if the thread activating this module is the given thread, or waits on a module the given thread activates, directly or through other threads.
+	 */
+	private boolean isWaitingOn(Thread thread) {
+		Set<Thread> visited = new HashSet<>();
+		for(JavaModule module = this; module != null; ) {
+			Thread activator = module.activator;
+			if(activator == thread)
+				return true;
+			if(activator == null || !visited.add(activator))
+				return false;
+			module = waitingOn.get(activator);
+		}
+		return false;
+	}
+	
+	/**
+	 * 
+	 * @return True if this module was loaded lazily, and is still waiting to be activated.
+	 */
+	public boolean isLazy() {
+		return jarLoader.getLazyModule(name) == this;
+	}
+	
+	/*
+	 * Activate any lazily loaded dependencies, so they're loaded before this module.
+	 */
+	private void activateDependencies() throws ModuleLoadException {
+		for(String[] names : new String[][] {depends, softDepends}) {
+			for(String dependency : names) {
+				JavaModule module = jarLoader.getLazyModule(dependency);
+				if(module != null)
+					module.activate();
+			}
+		}
 	}
 	
 	/**
 	 * Attempts to unload the instance of this module by closing the class loader, and nullifying the instance.
+	 * A lazily loaded module that was never activated only forgets its packages.
 	 * @throws IOException
 	 */
 	public void unload() throws IOException {
+		if(jarLoader.unregisterLazyModule(this) || this.loader == null)
+			return;
+		jarLoader.unregisterModule(this);
+		saveClassProfile();
 		this.onUnload.accept(this);
+		discard();
+	}
+	
+	/**
+	 * Save the classes defined by the loader of this module since it loaded to its class profile, if the JarLoader uses class profiles. Called when unloading.
+	 */
+	public void saveClassProfile() {
+		File classProfiles = jarLoader.getClassProfiles();
+		JarClassLoader loader = this.loader;
+		if(classProfiles == null || loader == null)
+			return;
+		List<String> recorded = loader.getRecordedClasses();
+		if(recorded.isEmpty())
+			return;
+		try {
+			ClassProfile.load(ClassProfile.getFile(classProfiles, name)).setClasses(recorded).save();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Unloads this module on an executor. See {@link #unloadAsync(Executor, long, TimeUnit)}.
+	 * @param executor The executor to unload this module on.
+	 * @return A future completing with this module once it has unloaded.
+	 */
+	public CompletableFuture<JavaModule> unloadAsync(Executor executor) {
+		return unloadAsync(executor, 0, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Unloads this module on an executor, running the onUnload consumer there instead of on the calling thread.
+	 * If the timeout passes first, the future fails with a TimeoutException, and the module keeps unloading in the background.
+	 * @param executor The executor to unload this module on.
+	 * @param timeout The maximum time to wait for this module to unload, or 0 to wait forever.
+	 * @param unit The unit of the timeout.
+	 * @return A future completing with this module once it has unloaded, or exceptionally with the IOException or TimeoutException.
+	 */
+	public CompletableFuture<JavaModule> unloadAsync(Executor executor, long timeout, TimeUnit unit) {
+		CompletableFuture<JavaModule> future = Futures.within(new CompletableFuture<>(), timeout, unit, "Module " + name + " didn't unload within " + timeout + " " + unit.toString().toLowerCase());
+		execute(executor, future, () -> {
+			try {
+				unload();
+				future.complete(this);
+			} catch (IOException | RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+	
+	/*
+	 * Forget the instance and close the class loader, without calling the onUnload consumer.
+	 */
+	private void discard() throws IOException {
+		jarLoader.unregisterModule(this);
 		this.instance = null;
 		this.loader.close();
 	}
 	
+	/*
+	 * Run a task on an executor, failing the future if the executor rejects it.
+	 */
+	private static void execute(Executor executor, CompletableFuture<JavaModule> future, Runnable task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+	}
+	
 	/**
 	 * 
 	 * @return True if the instance is loaded.
@@ -231,6 +545,30 @@ public class JavaModule {
 		return dependencies;
 	}
 	
+	/**
+	 * Get the loaders of every loaded module this module depends on, soft or not, directly or indirectly.
+	 * @return The loaders of the dependencies, each one listed after the loaders of its own dependencies.
+	 */
+	public List<JarClassLoader> getDependencyLoaders() {
+		List<JarClassLoader> loaders = new ArrayList<>();
+		collectDependencyLoaders(this, new HashSet<>(Arrays.asList(name)), loaders);
+		return loaders;
+	}
+	
+	/*
+	 * Depth first, so dependencies of a module are collected before the module itself.
+	 */
+	private void collectDependencyLoaders(JavaModule module, Set<String> visited, List<JarClassLoader> loaders) {
+		for(String dependency : module.getAllDependencies()) {
+			JavaModule dependencyModule = jarLoader.getModule(dependency);
+			if(dependencyModule == null || !visited.add(dependency))
+				continue;
+			collectDependencyLoaders(dependencyModule, visited, loaders);
+			if(dependencyModule.getLoader() != null)
+				loaders.add(dependencyModule.getLoader());
+		}
+	}
+	
 	/**
 	 * Check if this module contains a dependency.
 	 * @param name The module name to check.
@@ -0,0 +1,284 @@
+package dev.westernpine.objects.module;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.exceptions.ModuleLoadException;
+import dev.westernpine.objects.DependencyMapper;
+import dev.westernpine.objects.DependencyMapper.DependencyPath;
+import dev.westernpine.objects.Digests;
+
+/**
+ * An on-disk index of module.json values and the last mapped order of modules, so unchanged jars don't have to be opened or mapped again on the next start.
+ * Jars are matched by absolute path, size and last modified time, or by size and content hash if hashing is enabled.
+ * @author WesternPine
+ * 
+ */
+public class ModuleIndex {
+	
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	
+	/**
+	 * Load an index file, or start an empty index if the file doesn't exist or can't be read.
+	 * @param file The index file.
+	 * @param hashContents Whether to match jars by content hash instead of last modified time. Slower, but safe against unreliable timestamps.
+	 * @return The loaded index.
+	 */
+	public static ModuleIndex load(File file, boolean hashContents) {
+		ModuleIndex index = new ModuleIndex(file, hashContents);
+		if(file.isFile()) {
+			try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				Data data = GSON.fromJson(reader, Data.class);
+				if(data != null && data.modules != null) {
+					index.modules.putAll(data.modules);
+					index.mapping = data.mapping;
+				}
+			} catch (IOException | JsonParseException e) {
+				//A corrupt index is rebuilt from the jars.
+				index.changed = true;
+			}
+		}
+		return index;
+	}
+	
+	private final File file;
+	
+	private final boolean hashContents;
+	
+	private final Map<String, Entry> modules = new ConcurrentHashMap<>();
+	
+	private volatile Mapping mapping;
+	
+	private volatile boolean changed;
+	
+	private ModuleIndex(File file, boolean hashContents) {
+		this.file = file;
+		this.hashContents = hashContents;
+	}
+	
+	/**
+	 * 
+	 * @return The index file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+	
+	/**
+	 * Get a module for a jar file, from the index if the jar is unchanged, or else by reading its module.json and updating the index.
+	 * @param jarLoader The JarLoader to load the module with.
+	 * @param jarFile The jar file of the module.
+	 * @return The module of the jar file.
+	 * @throws ModuleLoadException If the jar had to be read, and it isn't a valid module.
+	 */
+	public JavaModule getModule(JarLoader jarLoader, File jarFile) throws ModuleLoadException {
+		String path = jarFile.getAbsolutePath();
+		long size = jarFile.length();
+		long modified = jarFile.lastModified();
+		String hash = null;
+		Entry entry = this.modules.get(path);
+		try {
+			if(entry != null && entry.size == size) {
+				if(!this.hashContents && entry.modified == modified)
+					return entry.toModule(jarLoader, jarFile);
+				if(this.hashContents && entry.hash != null && entry.hash.equals(hash = Digests.hash(jarFile, Digests.SHA_256))) {
+					if(entry.modified != modified) {
+						entry.modified = modified;
+						this.changed = true;
+					}
+					return entry.toModule(jarLoader, jarFile);
+				}
+			}
+			if(this.hashContents && hash == null)
+				hash = Digests.hash(jarFile, Digests.SHA_256);
+		} catch (IOException e) {
+			throw new ModuleLoadException("Unable to hash jar file contents: " + jarFile.getName(), e);
+		}
+		this.changed = true;
+		JavaModule module = new JavaModule(jarLoader, jarFile);
+		this.modules.put(path, new Entry(module, size, modified, hash));
+		return module;
+	}
+	
+	/**
+	 * Forget every jar file not in the given files.
+	 * @param jarFiles The jar files to keep in the index.
+	 */
+	public void retain(Collection<File> jarFiles) {
+		Set<String> paths = jarFiles.stream().map(File::getAbsolutePath).collect(Collectors.toSet());
+		if(this.modules.keySet().retainAll(paths))
+			this.changed = true;
+	}
+	
+	/**
+	 * Map modules, reusing the last mapped order if the same unchanged jars are mapped again in the same order.
+	 * @param modules The modules to map.
+	 * @return The mapped modules.
+	 */
+	public DependencyMapper map(List<JavaModule> modules) {
+		List<String> files = modules.stream().map(module -> module.getFile().getAbsolutePath()).collect(Collectors.toList());
+		Mapping mapping = this.mapping;
+		if(!this.changed && mapping != null && files.equals(mapping.files)) {
+			DependencyMapper restored = mapping.restore(modules);
+			if(restored != null)
+				return restored;
+		}
+		DependencyMapper mapper = new DependencyMapper(new LinkedList<>(modules));
+		this.mapping = new Mapping(files, mapper);
+		this.changed = true;
+		return mapper;
+	}
+	
+	/**
+	 * Write the index file, if anything changed since it was loaded.
+	 * @throws IOException If the index file can't be written.
+	 */
+	public void save() throws IOException {
+		if(!this.changed)
+			return;
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		if(parent != null)
+			parent.mkdirs();
+		File temp = new File(parent, this.file.getName() + ".tmp");
+		Data data = new Data();
+		data.modules = new HashMap<>(this.modules);
+		data.mapping = this.mapping;
+		try (Writer writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+			GSON.toJson(data, writer);
+		}
+		Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.changed = false;
+	}
+	
+	/*
+	 * The serialized form of the index file.
+	 */
+	private static class Data {
+		
+		private Map<String, Entry> modules;
+		
+		private Mapping mapping;
+	
+	}
+	
+	/*
+	 * The module.json values of one jar file, and what identified the jar when they were read.
+	 */
+	private static class Entry {
+		
+		private long size;
+		
+		private long modified;
+		
+		private String hash;
+		
+		private String name;
+		
+		private String main;
+		
+		private String version;
+		
+		private String[] depends;
+		
+		private String[] softDepends;
+		
+		private Entry(JavaModule module, long size, long modified, String hash) {
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+			this.name = module.getName();
+			this.main = module.getMain();
+			this.version = module.getVersion();
+			this.depends = module.getDepends();
+			this.softDepends = module.getSoftDepends();
+		}
+		
+		private JavaModule toModule(JarLoader jarLoader, File jarFile) throws ModuleLoadException {
+			return new JavaModule(jarLoader, jarFile, name, main, version, depends, softDepends);
+		}
+	
+	}
+	
+	/*
+	 * The last mapped order, and what was removed while mapping, by absolute jar path.
+	 */
+	private static class Mapping {
+		
+		private List<String> files;
+		
+		private List<String> mapped;
+		
+		private Map<String, List<String>> removedChains;
+		
+		private Map<String, String> removedMissingDependencies;
+		
+		private Mapping(List<String> files, DependencyMapper mapper) {
+			this.files = files;
+			this.mapped = mapper.getMappedModules().stream().map(module -> module.getFile().getAbsolutePath()).collect(Collectors.toList());
+			this.removedChains = new LinkedHashMap<>();
+			mapper.getRemovedChains().forEach((module, dpath) -> {
+				LinkedList<String> names = new LinkedList<>();
+				for(DependencyPath at = dpath; at != null; at = at.parent())
+					names.addFirst(at.name());
+				this.removedChains.put(module.getFile().getAbsolutePath(), names);
+			});
+			this.removedMissingDependencies = new LinkedHashMap<>();
+			mapper.getRemovedMissingDependencies().forEach((module, dependency) -> this.removedMissingDependencies.put(module.getFile().getAbsolutePath(), dependency));
+		}
+		
+		/*
+		 * Rebuild the mapper from the modules of the same jars, or null if the stored mapping doesn't fit them.
+		 */
+		private DependencyMapper restore(List<JavaModule> modules) {
+			if(mapped == null || removedChains == null || removedMissingDependencies == null)
+				return null;
+			Map<String, JavaModule> byPath = new HashMap<>();
+			modules.forEach(module -> byPath.put(module.getFile().getAbsolutePath(), module));
+			Set<String> used = new HashSet<>();
+			LinkedList<JavaModule> mappedModules = new LinkedList<>();
+			for(String path : mapped) {
+				if(!byPath.containsKey(path) || !used.add(path))
+					return null;
+				mappedModules.add(byPath.get(path));
+			}
+			Map<JavaModule, DependencyPath> chains = new HashMap<>();
+			for(Map.Entry<String, List<String>> chain : removedChains.entrySet()) {
+				if(!byPath.containsKey(chain.getKey()) || !used.add(chain.getKey()))
+					return null;
+				DependencyPath dpath = null;
+				for(String name : chain.getValue())
+					dpath = new DependencyPath(dpath, name);
+				chains.put(byPath.get(chain.getKey()), dpath);
+			}
+			Map<JavaModule, String> missing = new HashMap<>();
+			for(Map.Entry<String, String> dependency : removedMissingDependencies.entrySet()) {
+				if(!byPath.containsKey(dependency.getKey()) || !used.add(dependency.getKey()))
+					return null;
+				missing.put(byPath.get(dependency.getKey()), dependency.getValue());
+			}
+			return new DependencyMapper(mappedModules, chains, missing);
+		}
+	
+	}
+
+}
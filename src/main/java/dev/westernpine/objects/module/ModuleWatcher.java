@@ -0,0 +1,218 @@
+package dev.westernpine.objects.module;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.exceptions.ModuleLoadException;
+import dev.westernpine.objects.DependencyMapper;
+import dev.westernpine.objects.DependencyMapper.Delta;
+
+/**
+ * Watches a directory of module jars, and reloads only the modules whose jars changed, along with the modules depending on them.
+ * Bursts of file events are coalesced until the directory has been quiet for the debounce time. Changed modules and their dependents are unloaded dependents first, then reloaded with fresh class loaders. Every other module stays loaded.
+ * @author WesternPine
+ *
+ */
+public class ModuleWatcher implements Closeable {
+	
+	/**
+	 * The default time the directory has to be quiet before changes are applied.
+	 */
+	public static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+	
+	private final JarLoader jarLoader;
+	
+	private final DependencyMapper mapper;
+	
+	private final File directory;
+	
+	private final long debounceMillis;
+	
+	private final WatchService watchService;
+	
+	private final Thread thread;
+	
+	/**
+	 * Called with every module read from a changed jar, before it is loaded. Use it to set the module's onLoad and onUnload consumers.
+	 */
+	public Consumer<JavaModule> onModuleCreated = module -> {};
+	
+	/**
+	 * Called after each batch of changes is applied, with the modules that were unloaded and the modules that were loaded.
+	 */
+	public Consumer<Delta> onReload = delta -> {};
+	
+	/**
+	 * Create a watcher for a directory of module jars. Call {@link #start()} to begin watching.
+	 * @param jarLoader The JarLoader to read modules with.
+	 * @param mapper The mapped modules of the directory, already loaded.
+	 * @param directory The directory to watch.
+	 * @param debounceMillis The time the directory has to be quiet before changes are applied.
+	 * @throws IOException If the directory can't be watched.
+	 */
+	public ModuleWatcher(JarLoader jarLoader, DependencyMapper mapper, File directory, long debounceMillis) throws IOException {
+		this.jarLoader = jarLoader;
+		this.mapper = mapper;
+		this.directory = new File(directory.getAbsolutePath());
+		this.debounceMillis = debounceMillis;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.directory.toPath().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		this.thread = new Thread(this::watch, "JarLoader-ModuleWatcher-" + this.directory.getName());
+		this.thread.setDaemon(true);
+	}
+	
+	/**
+	 * Start watching the directory.
+	 * @return This same object.
+	 */
+	public ModuleWatcher start() {
+		this.thread.start();
+		return this;
+	}
+	
+	/**
+	 * Stop watching the directory. Loaded modules stay loaded.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.watchService.close();
+	}
+	
+	/*
+	 * Collect changed jars until the directory goes quiet, then apply them.
+	 */
+	private void watch() {
+		Set<File> changed = new LinkedHashSet<>();
+		try {
+			while(true) {
+				WatchKey key = changed.isEmpty() ? this.watchService.take() : this.watchService.poll(this.debounceMillis, TimeUnit.MILLISECONDS);
+				if(key == null) {
+					//Keep watching if a module fails to reload, or one of the callbacks throws.
+					try {
+						reload(changed);
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+					changed.clear();
+					continue;
+				}
+				for(WatchEvent<?> event : key.pollEvents()) {
+					if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+						continue;
+					File file = new File(this.directory, ((Path) event.context()).toString());
+					if(!file.getName().equals(".jar") && file.getName().endsWith(".jar"))
+						changed.add(file);
+				}
+				if(!key.reset())
+					return;
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			//Stopped watching.
+		}
+	}
+	
+	/**
+	 * Apply a batch of changed jars: unload the modules of changed or deleted jars and everything requiring them, then load the changed jars and every module that can load again.
+	 * Modules soft depending on a changed module may hold on to its classes too, so they're unloaded before it, and loaded again from their jars after it.
+	 * @param files The changed jar files.
+	 * @return The modules that were unloaded and loaded.
+	 */
+	public synchronized Delta reload(Set<File> files) {
+		Map<File, JavaModule> known = new HashMap<>();
+		this.mapper.getMappedModules().forEach(module -> known.put(module.getFile(), module));
+		this.mapper.getRemovedMissingDependencies().keySet().forEach(module -> known.put(module.getFile(), module));
+		this.mapper.getRemovedChains().keySet().forEach(module -> known.put(module.getFile(), module));
+		List<JavaModule> mapped = this.mapper.getMappedModules();
+		List<File> softDependents = getSoftDependents(files, known, mapped);
+		List<JavaModule> removed = new ArrayList<>();
+		for(File file : files) {
+			if(known.containsKey(file))
+				removed.add(known.get(file));
+		}
+		softDependents.forEach(file -> removed.add(known.get(file)));
+		//Dependents first, so soft dependents are unloaded while the classes of their dependencies are still there.
+		removed.sort((o1, o2) -> Integer.compare(mapped.indexOf(o2), mapped.indexOf(o1)));
+		List<JavaModule> unloaded = new ArrayList<>();
+		for(JavaModule old : removed) {
+			for(JavaModule module : this.mapper.remove(old.getName()).getUnloadable()) {
+				if(!module.isLoaded() && !module.isLazy())
+					continue;
+				try {
+					module.unload();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				unloaded.add(module);
+			}
+		}
+		List<JavaModule> loadable = new ArrayList<>();
+		List<File> added = new ArrayList<>(files);
+		added.addAll(softDependents);
+		for(File file : added) {
+			if(!file.isFile())
+				continue;
+			try {
+				JavaModule module = new JavaModule(this.jarLoader, file);
+				this.onModuleCreated.accept(module);
+				loadable.addAll(this.mapper.add(module).getLoadable());
+			} catch (ModuleLoadException | IllegalArgumentException e) {
+				e.printStackTrace();
+			}
+		}
+		Delta delta = new Delta();
+		delta.getUnloadable().addAll(unloaded);
+		for(JavaModule module : loadable) {
+			try {
+				module.load();
+				delta.getLoadable().add(module);
+			} catch (ModuleLoadException e) {
+				e.printStackTrace();
+			}
+		}
+		this.onReload.accept(delta);
+		return delta;
+	}
+	
+	/*
+	 * Get the jars of the mapped modules soft depending on the modules of changed jars, directly or through other affected modules, in order of execution. Hard dependents are left out, as removing their dependency already unloads them.
+	 */
+	private static List<File> getSoftDependents(Set<File> files, Map<File, JavaModule> known, List<JavaModule> mapped) {
+		Set<String> affected = new HashSet<>();
+		for(File file : files) {
+			if(known.containsKey(file))
+				affected.add(known.get(file).getName());
+		}
+		List<File> softDependents = new ArrayList<>();
+		for(JavaModule module : mapped) {
+			if(affected.contains(module.getName()))
+				continue;
+			boolean soft = Arrays.stream(module.getSoftDepends()).anyMatch(affected::contains);
+			boolean hard = Arrays.stream(module.getDepends()).anyMatch(affected::contains);
+			if(soft || hard)
+				affected.add(module.getName());
+			if(soft && !hard)
+				softDependents.add(module.getFile());
+		}
+		return softDependents;
+	}
+	
+}
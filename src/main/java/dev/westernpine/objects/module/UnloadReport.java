@@ -0,0 +1,94 @@
+package dev.westernpine.objects.module;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * The outcome of unloading every module of a JarLoader, separating the modules that unloaded from those that failed or overran their deadlines.
+ * @author WesternPine
+ * 
+ */
+public class UnloadReport {
+	
+	private LinkedList<JavaModule> unloaded = new LinkedList<>();
+	
+	private Map<JavaModule, Throwable> failed = new LinkedHashMap<>();
+	
+	private LinkedList<JavaModule> overran = new LinkedList<>();
+	
+	private LinkedList<JavaModule> unfinished = new LinkedList<>();
+	
+	private long elapsedMillis;
+	
+	/**
+	 * 
+	 * @return The modules that unloaded within their deadline, in order of unloading.
+	 */
+	public LinkedList<JavaModule> getUnloaded() {
+		return this.unloaded;
+	}
+	
+	/**
+	 * 
+	 * @return The modules whose unloading threw an exception, with the exception.
+	 */
+	public Map<JavaModule, Throwable> getFailed() {
+		return this.failed;
+	}
+	
+	/**
+	 * 
+	 * @return The modules that didn't unload within the per module deadline. They may still be unloading in the background.
+	 */
+	public LinkedList<JavaModule> getOverran() {
+		return this.overran;
+	}
+	
+	/**
+	 * 
+	 * @return The modules that hadn't finished, or hadn't started, unloading when the global deadline passed.
+	 */
+	public LinkedList<JavaModule> getUnfinished() {
+		return this.unfinished;
+	}
+	
+	/**
+	 * 
+	 * @return The time taken to unload, in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return this.elapsedMillis;
+	}
+	
+	/**
+	 * Set the time taken to unload.
+	 * @param elapsedMillis The time taken to unload, in milliseconds.
+	 * @return This same object.
+	 */
+	public UnloadReport setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * @return True if every module unloaded within its deadline.
+	 */
+	public boolean isComplete() {
+		return this.failed.isEmpty() && this.overran.isEmpty() && this.unfinished.isEmpty();
+	}
+	
+	@Override
+	public String toString() {
+		return "UnloadReport [unloaded=" + this.unloaded.size() + ", failed=" + names(this.failed.keySet()) + ", overran=" + names(this.overran) + ", unfinished=" + names(this.unfinished) + ", elapsedMillis=" + this.elapsedMillis + "]";
+	}
+	
+	private static String names(Iterable<JavaModule> modules) {
+		StringBuilder builder = new StringBuilder("[");
+		for(JavaModule module : modules)
+			builder.append(builder.length() > 1 ? ", " : "").append(module.getName());
+		return builder.append("]").toString();
+	}
+
+}
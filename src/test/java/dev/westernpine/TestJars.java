@@ -0,0 +1,186 @@
+package dev.westernpine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Builds small jars for tests, with empty or compiled classes that aren't on the test class path.
+ * @author WesternPine
+ * 
+ */
+public class TestJars {
+	
+	private final Map<String, byte[]> entries = new LinkedHashMap<>();
+	
+	private final Map<String, String> sources = new LinkedHashMap<>();
+	
+	private boolean stored;
+	
+	/**
+	 * Add an empty public class.
+	 * @param className The binary name of the class.
+	 * @return This same object.
+	 */
+	public TestJars withClass(String className) {
+		return withEntry(className.replace('.', '/') + ".class", emptyClass(className));
+	}
+	
+	/**
+	 * Add a class compiled from source, along with the other sources of this jar.
+	 * @param className The binary name of the class.
+	 * @param source The source of the class.
+	 * @return This same object.
+	 */
+	public TestJars withSource(String className, String source) {
+		this.sources.put(className, source);
+		return this;
+	}
+	
+	/**
+	 * Add a text resource.
+	 * @param name The entry name.
+	 * @param text The contents.
+	 * @return This same object.
+	 */
+	public TestJars withResource(String name, String text) {
+		return withEntry(name, text.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Add an entry.
+	 * @param name The entry name.
+	 * @param bytes The contents.
+	 * @return This same object.
+	 */
+	public TestJars withEntry(String name, byte[] bytes) {
+		this.entries.put(name, bytes);
+		return this;
+	}
+	
+	/**
+	 * Store entries uncompressed, instead of deflating them.
+	 * @return This same object.
+	 */
+	public TestJars stored() {
+		this.stored = true;
+		return this;
+	}
+	
+	/**
+	 * 
+	 * @return The bytes of the jar.
+	 */
+	public byte[] toBytes() throws IOException {
+		compile();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (JarOutputStream out = new JarOutputStream(bytes)) {
+			for(Map.Entry<String, byte[]> entry : this.entries.entrySet()) {
+				ZipEntry zipEntry = new ZipEntry(entry.getKey());
+				if(this.stored) {
+					CRC32 crc = new CRC32();
+					crc.update(entry.getValue());
+					zipEntry.setMethod(ZipEntry.STORED);
+					zipEntry.setSize(entry.getValue().length);
+					zipEntry.setCompressedSize(entry.getValue().length);
+					zipEntry.setCrc(crc.getValue());
+				}
+				out.putNextEntry(zipEntry);
+				out.write(entry.getValue());
+				out.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Write the jar to a file.
+	 * @param file The file to write.
+	 * @return The same file.
+	 */
+	public File write(File file) throws IOException {
+		Files.write(file.toPath(), toBytes());
+		return file;
+	}
+	
+	/*
+	 * Compile the added sources, and add their class files.
+	 */
+	private void compile() throws IOException {
+		if(this.sources.isEmpty())
+			return;
+		Path directory = Files.createTempDirectory("sources");
+		try {
+			List<String> arguments = new ArrayList<>();
+			arguments.add("-d");
+			arguments.add(directory.toString());
+			for(Map.Entry<String, String> source : this.sources.entrySet()) {
+				Path file = directory.resolve(source.getKey().replace('.', '/') + ".java");
+				Files.createDirectories(file.getParent());
+				Files.write(file, source.getValue().getBytes(StandardCharsets.UTF_8));
+				arguments.add(file.toString());
+			}
+			JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+			if(compiler.run(null, null, null, arguments.toArray(new String[0])) != 0)
+				throw new IOException("Unable to compile " + this.sources.keySet());
+			try (Stream<Path> files = Files.walk(directory)) {
+				for(Path file : files.filter(file -> file.toString().endsWith(".class")).collect(Collectors.toList()))
+					withEntry(directory.relativize(file).toString().replace(File.separatorChar, '/'), Files.readAllBytes(file));
+			}
+			this.sources.clear();
+		} finally {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted((a, b) -> b.compareTo(a)).forEach(file -> file.toFile().delete());
+			}
+		}
+	}
+	
+	/*
+	 * The class file of a public class with no members, extending Object.
+	 */
+	private static byte[] emptyClass(String className) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(52);
+			out.writeShort(5);
+			out.writeByte(1);
+			out.writeUTF(className.replace('.', '/'));
+			out.writeByte(7);
+			out.writeShort(1);
+			out.writeByte(1);
+			out.writeUTF("java/lang/Object");
+			out.writeByte(7);
+			out.writeShort(3);
+			out.writeShort(0x0021);
+			out.writeShort(2);
+			out.writeShort(4);
+			out.writeShort(0);
+			out.writeShort(0);
+			out.writeShort(0);
+			out.writeShort(0);
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
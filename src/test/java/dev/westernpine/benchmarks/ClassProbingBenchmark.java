@@ -0,0 +1,120 @@
+package dev.westernpine.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.TestJars;
+import dev.westernpine.objects.classloaders.JarClassLoader;
+
+/**
+ * Compares looking up classes through saved sibling loaders with the non-throwing probe of JarClassLoader, against the previous lookup that used ClassNotFoundException as control flow for the parent and every sibling.
+ * @author WesternPine
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassProbingBenchmark {
+	
+	@Param({"32"})
+	public int siblings;
+	
+	/**
+	 * "sibling" looks up a class held by the last saved loader, "missing" a class no loader holds.
+	 */
+	@Param({"sibling", "missing"})
+	public String lookup;
+	
+	private File directory;
+	
+	private JarLoader jarLoader;
+	
+	private JarClassLoader probing;
+	
+	private List<URLClassLoader> throwing;
+	
+	private String className;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		this.directory = Files.createTempDirectory("probing").toFile();
+		this.jarLoader = new JarLoader() {};
+		this.throwing = new ArrayList<>();
+		for(int index = 0; index < this.siblings; index++) {
+			File jar = new TestJars().withClass("sibling" + index + ".Held").write(new File(this.directory, "sibling" + index + ".jar"));
+			JarClassLoader loader = this.jarLoader.newLoader(true);
+			loader.addURL(jar.toURI().toURL());
+			if(index == 0)
+				this.probing = loader;
+			this.throwing.add(new URLClassLoader(new URL[] {jar.toURI().toURL()}));
+		}
+		this.className = this.lookup.equals("sibling") ? "sibling" + (this.siblings - 1) + ".Held" : "sibling.Missing";
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		for(URLClassLoader loader : this.throwing)
+			loader.close();
+		for(File file : this.directory.listFiles())
+			file.delete();
+		this.directory.delete();
+	}
+	
+	@Benchmark
+	public Class<?> probe() {
+		try {
+			return this.probing.loadClass(this.className);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+	
+	@Benchmark
+	public Class<?> exceptionControlFlow() {
+		try {
+			return loadClass0(this.throwing.get(0), this.className, true);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+	
+	/*
+	 * The previous JarClassLoader lookup: ask the loader, then every sibling, catching a ClassNotFoundException from each.
+	 */
+	private Class<?> loadClass0(URLClassLoader loader, String name, boolean checkOther) throws ClassNotFoundException {
+		try {return loader.loadClass(name);} catch (ClassNotFoundException ignored) {}
+		if (checkOther) {
+			for (URLClassLoader other : this.throwing) {
+				if (other != loader) {
+					try {return loadClass0(other, name, false);} catch (ClassNotFoundException ignored) {}
+				}
+			}
+		}
+		throw new ClassNotFoundException(name);
+	}
+
+}
@@ -0,0 +1,129 @@
+package dev.westernpine.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.TestJars;
+import dev.westernpine.exceptions.ModuleLoadException;
+import dev.westernpine.objects.DependencyMapper;
+import dev.westernpine.objects.module.JavaModule;
+
+/**
+ * Compares reading the module.json of a directory of module jars through the zip central directory, sequentially and with {@link JarLoader#loadModules(List)}, against the previous JarInputStream scan from the start of each jar.
+ * Every jar holds incompressible entries before its module.json, so the scan has to inflate nearly the whole jar.
+ * @author WesternPine
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModuleDescriptorBenchmark {
+	
+	@Param({"300"})
+	public int jars;
+	
+	/**
+	 * The amount of 4 KiB entries before module.json in every jar.
+	 */
+	@Param({"256"})
+	public int entries;
+	
+	private File directory;
+	
+	private List<File> files;
+	
+	private JarLoader jarLoader;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		this.directory = Files.createTempDirectory("descriptors").toFile();
+		this.jarLoader = new JarLoader() {};
+		this.files = new ArrayList<>();
+		Random random = new Random(0);
+		for(int index = 0; index < this.jars; index++) {
+			TestJars jar = new TestJars();
+			for(int entry = 0; entry < this.entries; entry++) {
+				byte[] bytes = new byte[4096];
+				random.nextBytes(bytes);
+				jar.withEntry("data/" + entry + ".bin", bytes);
+			}
+			jar.withResource(JavaModule.MODULE_JSON_FILENAME, "{\"name\":\"module" + index + "\",\"main\":\"module" + index + ".Main\",\"version\":\"1\"}");
+			this.files.add(jar.write(new File(this.directory, "module" + index + ".jar")));
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for(File file : this.directory.listFiles())
+			file.delete();
+		this.directory.delete();
+	}
+	
+	@Benchmark
+	public List<JavaModule> centralDirectory() throws ModuleLoadException {
+		List<JavaModule> modules = new ArrayList<>();
+		for(File file : this.files)
+			modules.add(new JavaModule(this.jarLoader, file));
+		return modules;
+	}
+	
+	@Benchmark
+	public DependencyMapper centralDirectoryParallel() {
+		return this.jarLoader.loadModules(this.files);
+	}
+	
+	@Benchmark
+	public List<String> jarInputStreamScan() throws IOException {
+		List<String> names = new ArrayList<>();
+		for(File file : this.files)
+			names.add(scan(file));
+		return names;
+	}
+	
+	/*
+	 * The previous module.json lookup: stream the jar from the start until the descriptor entry.
+	 */
+	private static String scan(File file) throws IOException {
+		try (JarInputStream in = new JarInputStream(new FileInputStream(file))) {
+			for(JarEntry entry; (entry = in.getNextJarEntry()) != null; ) {
+				if(entry.getName().equals(JavaModule.MODULE_JSON_FILENAME)) {
+					JsonObject json = JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8)).getAsJsonObject();
+					return json.get("name").getAsString();
+				}
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,46 @@
+package dev.westernpine.objects.classloaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.TestJars;
+
+public class JarClassLoaderTest {
+	
+	private final JarLoader jarLoader = new JarLoader() {};
+	
+	@Test
+	public void recordsOnlyRequestedPreloadedClasses() throws Exception {
+		byte[] jar = new TestJars().withClass("recorded.Used").withClass("recorded.Unused").withClass("recorded.Other").toBytes();
+		try (JarClassLoader loader = this.jarLoader.newLoader(jar, false)) {
+			loader.startRecording();
+			assertTrue(loader.preload("recorded.Used"));
+			assertTrue(loader.preload("recorded.Unused"));
+			loader.loadClass("recorded.Other");
+			loader.loadClass("recorded.Used");
+			loader.loadClass("recorded.Used");
+			assertEquals(Arrays.asList("recorded.Other", "recorded.Used"), loader.getRecordedClasses());
+		}
+	}
+	
+	@Test
+	public void recordsPreloadedClassesResolvedByTheJvm() throws Exception {
+		byte[] jar = new TestJars().withSource("linked.Main", "package linked; public class Main { public Main() { new Helper(); } }")
+				.withSource("linked.Helper", "package linked; public class Helper extends Base {}")
+				.withSource("linked.Base", "package linked; public class Base {}")
+				.withSource("linked.Unused", "package linked; public class Unused {}").toBytes();
+		try (JarClassLoader loader = this.jarLoader.newLoader(jar, false)) {
+			loader.startRecording();
+			assertTrue(loader.preload("linked.Helper"));
+			assertTrue(loader.preload("linked.Unused"));
+			loader.loadClass("linked.Main").getDeclaredConstructor().newInstance();
+			assertEquals(Arrays.asList("linked.Main", "linked.Base", "linked.Helper"), loader.getRecordedClasses());
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package dev.westernpine.objects.classloaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+
+import org.junit.Test;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.TestJars;
+
+public class MappedJarFileTest {
+	
+	private final JarLoader jarLoader = new JarLoader() {};
+	
+	@Test
+	public void loadsFromHeapArray() throws Exception {
+		assertLoads(this.jarLoader.newLoader(jar(false), false));
+	}
+	
+	@Test
+	public void loadsOffHeap() throws Exception {
+		assertLoads(this.jarLoader.newLoader(jar(true), true, false));
+	}
+	
+	@Test
+	public void loadsFromBufferWithOffset() throws Exception {
+		byte[] jar = jar(false);
+		byte[] padded = new byte[jar.length + 20];
+		System.arraycopy(jar, 0, padded, 10, jar.length);
+		assertLoads(this.jarLoader.newLoader(ByteBuffer.wrap(padded, 10, jar.length), false));
+	}
+	
+	@Test
+	public void loadsFromSlicedDirectBuffer() throws Exception {
+		byte[] jar = jar(true);
+		ByteBuffer direct = ByteBuffer.allocateDirect(jar.length + 16);
+		((Buffer) direct).position(16);
+		direct.put(jar);
+		((Buffer) direct).position(16);
+		assertLoads(this.jarLoader.newLoader(direct.slice(), false));
+	}
+	
+	@Test
+	public void rejectsTruncatedArchive() throws Exception {
+		byte[] jar = jar(false);
+		assertRejects(Arrays.copyOf(jar, jar.length / 2));
+	}
+	
+	@Test
+	public void rejectsNamesPastTheEnd() throws Exception {
+		byte[] jar = jar(false);
+		ByteBuffer.wrap(jar).order(ByteOrder.LITTLE_ENDIAN).putShort(lastCentralHeader(jar) + 28, (short) 0xFFFF);
+		assertRejects(jar);
+	}
+	
+	@Test
+	public void failsToLoadFromLocalHeadersPastTheEnd() throws Exception {
+		byte[] jar = jar(false);
+		ByteBuffer buffer = ByteBuffer.wrap(jar).order(ByteOrder.LITTLE_ENDIAN);
+		for(int position = 0; position + 4 <= jar.length; position++) {
+			if(buffer.getInt(position) == 0x02014b50)
+				buffer.putInt(position + 42, jar.length - 2);
+		}
+		JarClassLoader loader = this.jarLoader.newLoader(jar, false);
+		try {
+			loader.loadClass("memory.Loaded");
+			fail();
+		} catch (ClassNotFoundException expected) {} finally {
+			loader.close();
+		}
+	}
+	
+	private void assertRejects(byte[] jar) throws Exception {
+		try {
+			this.jarLoader.newLoader(jar, false).close();
+			fail();
+		} catch (ZipException expected) {}
+	}
+	
+	private static int lastCentralHeader(byte[] jar) {
+		ByteBuffer buffer = ByteBuffer.wrap(jar).order(ByteOrder.LITTLE_ENDIAN);
+		for(int position = jar.length - 4; position >= 0; position--) {
+			if(buffer.getInt(position) == 0x02014b50)
+				return position;
+		}
+		throw new IllegalArgumentException("No central directory header.");
+	}
+	
+	private static byte[] jar(boolean stored) throws IOException {
+		TestJars jar = new TestJars().withClass("memory.Loaded").withResource("memory/hello.txt", "hello");
+		return (stored ? jar.stored() : jar).toBytes();
+	}
+	
+	private static void assertLoads(JarClassLoader loader) throws Exception {
+		try {
+			assertSame(loader, loader.loadClass("memory.Loaded").getClassLoader());
+			URL resource = loader.getResource("memory/hello.txt");
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+				assertEquals("hello", reader.readLine());
+			}
+			assertNull(loader.getResource("memory/missing.txt"));
+		} finally {
+			loader.close();
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package dev.westernpine.objects.maven;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.TestJars;
+import dev.westernpine.objects.Digests;
+import dev.westernpine.objects.classloaders.JarClassLoader;
+
+@SuppressWarnings("deprecation")
+public class DependencyDownloaderTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private LocalRepository repository;
+	
+	private File directory;
+	
+	@Before
+	public void start() throws Exception {
+		this.repository = new LocalRepository();
+		this.directory = this.folder.newFolder();
+	}
+	
+	@After
+	public void stop() {
+		this.repository.close();
+	}
+	
+	@Test
+	public void downloadsAndVerifiesInParallel() throws Exception {
+		List<Dependency> dependencies = new ArrayList<>();
+		List<byte[]> jars = new ArrayList<>();
+		for(int index = 0; index < 6; index++) {
+			byte[] jar = new TestJars().withClass("lib" + index + ".Lib").toBytes();
+			this.repository.put("test", "lib" + index, "1.0", "jar", jar).put("test", "lib" + index, "1.0", "jar.sha1", sha1(jar));
+			dependencies.add(new Dependency("test", "lib" + index, "1.0").withRepository(this.repository.getRepository()));
+			jars.add(jar);
+		}
+		Set<String> started = ConcurrentHashMap.newKeySet();
+		Set<String> completed = ConcurrentHashMap.newKeySet();
+		List<File> files = new ArrayList<>(new DependencyDownloader(4).withListener(new DownloadListener() {
+			@Override
+			public void onStart(Dependency dependency, long contentLength) {
+				started.add(dependency.getCoordinates());
+			}
+			
+			@Override
+			public void onComplete(Dependency dependency, File file, long bytes, long nanos) {
+				completed.add(dependency.getCoordinates());
+			}
+		}).download(dependencies, this::getFile).values());
+		assertEquals(6, started.size());
+		assertEquals(6, completed.size());
+		for(int index = 0; index < 6; index++) {
+			assertArrayEquals(jars.get(index), Files.readAllBytes(files.get(index).toPath()));
+			assertTrue(DependencyDownloader.getDigestsFile(files.get(index)).isFile());
+		}
+		
+		//Jars on disk are checked against their cached digests, without any request.
+		int requests = this.repository.getRequests();
+		new DependencyDownloader(4).download(dependencies, this::getFile);
+		assertEquals(requests, this.repository.getRequests());
+	}
+	
+	@Test
+	public void rejectsChecksumMismatches() throws Exception {
+		byte[] jar = new TestJars().withClass("lib.Lib").toBytes();
+		this.repository.put("test", "lib", "1.0", "jar", jar);
+		Dependency dependency = new Dependency("test", "lib", "1.0").withRepository(this.repository.getRepository()).withChecksum("0000000000000000000000000000000000000000");
+		Set<String> failed = ConcurrentHashMap.newKeySet();
+		try {
+			new DependencyDownloader().withListener(new DownloadListener() {
+				@Override
+				public void onFailure(Dependency dependency, Throwable throwable) {
+					failed.add(dependency.getCoordinates());
+				}
+			}).download(Arrays.asList(dependency), this::getFile);
+			fail();
+		} catch (IOException expected) {}
+		assertEquals(1, failed.size());
+		assertFalse(getFile(dependency).exists());
+		assertEquals(0, this.directory.listFiles().length);
+	}
+	
+	@Test
+	public void failsWhenTheChecksumFileFails() throws Exception {
+		this.repository.put("test", "lib", "1.0", "jar", new TestJars().withClass("lib.Lib").toBytes()).fail("test", "lib", "1.0", "jar.sha1", 500);
+		Dependency dependency = new Dependency("test", "lib", "1.0").withRepository(this.repository.getRepository());
+		try {
+			new DependencyDownloader().download(Arrays.asList(dependency), this::getFile);
+			fail();
+		} catch (IOException expected) {}
+		assertFalse(getFile(dependency).exists());
+		
+		//A missing checksum file only leaves the jar unverified.
+		this.repository.fail("test", "lib", "1.0", "jar.sha1", 404);
+		new DependencyDownloader().download(Arrays.asList(dependency), this::getFile);
+		assertTrue(getFile(dependency).isFile());
+	}
+	
+	@Test
+	public void deletesAbandonedDownloads() throws Exception {
+		this.repository.put("test", "lib", "1.0", "jar", new TestJars().withClass("lib.Lib").toBytes());
+		Dependency dependency = new Dependency("test", "lib", "1.0").withRepository(this.repository.getRepository());
+		File abandoned = new File(this.directory, "lib-1.0.jar.123.part");
+		File running = new File(this.directory, "other-1.0.jar.456.part");
+		Files.write(abandoned.toPath(), new byte[10]);
+		Files.write(running.toPath(), new byte[10]);
+		abandoned.setLastModified(System.currentTimeMillis() - 60 * 60 * 1000);
+		new DependencyDownloader().download(Arrays.asList(dependency), this::getFile);
+		assertFalse(abandoned.exists());
+		assertTrue(running.exists());
+	}
+	
+	@Test
+	public void loadsNothingIfAnyDownloadFails() throws Exception {
+		byte[] jar = new TestJars().withClass("lib.Lib").toBytes();
+		this.repository.put("test", "lib", "1.0", "jar", jar);
+		List<Dependency> dependencies = Arrays.asList(new Dependency("test", "lib", "1.0").withRepository(this.repository.getRepository()),
+				new Dependency("test", "missing", "1.0").withRepository(this.repository.getRepository()));
+		JarClassLoader loader = new JarLoader() {}.newLoader(false);
+		try {
+			JarLoader.loadDependencies(loader, dependencies, this::getFile, 2, null);
+			fail();
+		} catch (RuntimeException expected) {}
+		assertEquals(0, loader.getURLs().length);
+		
+		this.repository.put("test", "missing", "1.0", "jar", jar);
+		JarLoader.loadDependencies(loader, dependencies, this::getFile, 2, null);
+		assertEquals(2, loader.getURLs().length);
+	}
+	
+	private File getFile(Dependency dependency) {
+		return new File(this.directory, dependency.artifactId + "-" + dependency.version + ".jar");
+	}
+	
+	private static byte[] sha1(byte[] bytes) {
+		return Digests.toHex(Digests.newDigest(Digests.SHA_1).digest(bytes)).getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
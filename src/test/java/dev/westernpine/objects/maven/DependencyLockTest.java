@@ -0,0 +1,60 @@
+package dev.westernpine.objects.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dev.westernpine.TestJars;
+
+public class DependencyLockTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private LocalRepository repository;
+	
+	@Before
+	public void start() throws Exception {
+		this.repository = new LocalRepository();
+	}
+	
+	@After
+	public void stop() {
+		this.repository.close();
+	}
+	
+	@Test
+	public void rejectsJarsChangedWithTheSameSize() throws Exception {
+		this.repository.put("test", "lib", "1.0", "jar", new TestJars().withClass("lib.Lib").toBytes());
+		List<Dependency> dependencies = Arrays.asList(new Dependency("test", "lib", "1.0").withRepository(this.repository.getRepository()));
+		File directory = this.folder.newFolder();
+		File lockFile = new File(directory, "dependencies.lock");
+		Map<Dependency, File> files = new DependencyDownloader().download(dependencies, dependency -> new File(directory, dependency.artifactId + ".jar"));
+		DependencyLock.load(lockFile, dependencies).lock(files).save();
+		
+		DependencyLock lock = DependencyLock.load(lockFile, dependencies);
+		assertTrue(lock.isValid());
+		assertEquals(1, lock.getFiles().size());
+		
+		File jar = lock.getFiles().get(0);
+		byte[] bytes = Files.readAllBytes(jar.toPath());
+		bytes[bytes.length / 2] ^= 1;
+		long modified = jar.lastModified();
+		Files.write(jar.toPath(), bytes);
+		jar.setLastModified(modified + 1000);
+		assertFalse(DependencyLock.load(lockFile, dependencies).isValid());
+	}
+
+}
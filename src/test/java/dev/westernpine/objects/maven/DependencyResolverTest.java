@@ -0,0 +1,89 @@
+package dev.westernpine.objects.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DependencyResolverTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private LocalRepository repository;
+	
+	@Before
+	public void start() throws Exception {
+		this.repository = new LocalRepository();
+	}
+	
+	@After
+	public void stop() {
+		this.repository.close();
+	}
+	
+	@Test
+	public void interpolatesInheritedValuesAgainstTheChild() throws Exception {
+		this.repository.putPom("test", "parent", "1.0", "<properties><lib.version>1.0</lib.version></properties>"
+				+ "<dependencyManagement><dependencies>"
+				+ "<dependency><groupId>test</groupId><artifactId>sibling</artifactId><version>${project.version}</version></dependency>"
+				+ "<dependency><groupId>test</groupId><artifactId>lib</artifactId><version>${lib.version}</version></dependency>"
+				+ "</dependencies></dependencyManagement>")
+				.putPom("test", "child", "2.0", "<parent><groupId>test</groupId><artifactId>parent</artifactId><version>1.0</version></parent>"
+				+ "<properties><lib.version>3.0</lib.version></properties>"
+				+ "<dependencies>"
+				+ "<dependency><groupId>test</groupId><artifactId>sibling</artifactId></dependency>"
+				+ "<dependency><groupId>test</groupId><artifactId>lib</artifactId></dependency>"
+				+ "</dependencies>")
+				.putPom("test", "sibling", "2.0", "")
+				.putPom("test", "lib", "3.0", "");
+		List<Dependency> resolved = new DependencyResolver(this.folder.newFolder()).resolve(Arrays.asList(new Dependency("test", "child", "2.0").withRepository(this.repository.getRepository())));
+		assertEquals(Arrays.asList("test:child:2.0", "test:sibling:2.0", "test:lib:3.0"), resolved.stream().map(Dependency::getCoordinates).collect(Collectors.toList()));
+	}
+	
+	@Test
+	public void resolvesCopiesAndKeepsPinsFromCache() throws Exception {
+		this.repository.putPom("test", "app", "1.0", "<dependencies><dependency><groupId>test</groupId><artifactId>lib</artifactId><version>1.0</version></dependency></dependencies>")
+				.putPom("test", "lib", "1.0", "");
+		Repository local = this.repository.getRepository();
+		Dependency root = new Dependency("test", "app", "1.0").withRepository(local).withChecksum("0000000000000000000000000000000000000000");
+		DependencyResolver resolver = new DependencyResolver(this.folder.newFolder());
+		for(int run = 0; run < 2; run++) {
+			List<Dependency> resolved = resolver.resolve(Arrays.asList(root));
+			assertEquals(2, resolved.size());
+			assertNotSame(root, resolved.get(0));
+			assertEquals(root.checksum, resolved.get(0).checksum);
+			assertSame(local, root.repository);
+		}
+	}
+	
+	@Test
+	public void cachesTheFallbackRepository() throws Exception {
+		this.repository.putPom("test", "app", "1.0", "<dependencies><dependency><groupId>test</groupId><artifactId>central</artifactId><version>1.0</version></dependency></dependencies>");
+		File cache = this.folder.newFolder();
+		//Only in the POM cache of Maven Central, so it's found through the fallback without any network access.
+		File centralPom = new File(cache, "poms/" + Repository.MAVEN_CENTRAL_REPOSITORY.url.replaceAll("[^A-Za-z0-9.-]+", "_") + "/test/central/1.0/central-1.0.pom");
+		centralPom.getParentFile().mkdirs();
+		Files.write(centralPom.toPath(), "<project><modelVersion>4.0.0</modelVersion><groupId>test</groupId><artifactId>central</artifactId><version>1.0</version></project>".getBytes(StandardCharsets.UTF_8));
+		List<Dependency> dependencies = Arrays.asList(new Dependency("test", "app", "1.0").withRepository(this.repository.getRepository()));
+		for(int run = 0; run < 2; run++) {
+			//A new resolver each run, so the second run reads the cached graph.
+			List<Dependency> resolved = new DependencyResolver(cache).resolve(dependencies);
+			assertEquals(this.repository.getRepository().url, resolved.get(0).repository.url);
+			assertEquals(Repository.MAVEN_CENTRAL_REPOSITORY.url, resolved.get(1).repository.url);
+		}
+	}
+
+}
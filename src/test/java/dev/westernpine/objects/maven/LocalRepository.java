@@ -0,0 +1,117 @@
+package dev.westernpine.objects.maven;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A Maven repository served over HTTP on the loopback interface, standing in for a remote repository in tests.
+ * @author WesternPine
+ * 
+ */
+public class LocalRepository implements Closeable {
+	
+	private final HttpServer server;
+	
+	private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+	
+	private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+	
+	private final AtomicInteger requests = new AtomicInteger();
+	
+	/**
+	 * Start serving an empty repository on a free port.
+	 * @throws IOException If the server can't be started.
+	 */
+	public LocalRepository() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext("/", exchange -> {
+			this.requests.incrementAndGet();
+			Integer status = this.statuses.get(exchange.getRequestURI().getPath());
+			byte[] bytes = status != null ? null : this.files.get(exchange.getRequestURI().getPath());
+			exchange.sendResponseHeaders(status != null ? status : bytes == null ? 404 : 200, bytes == null ? -1 : bytes.length);
+			if(bytes != null) {
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(bytes);
+				}
+			}
+			exchange.close();
+		});
+		this.server.start();
+	}
+	
+	/**
+	 * 
+	 * @return The repository to resolve and download from.
+	 */
+	public Repository getRepository() {
+		return new Repository("Local", "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/");
+	}
+	
+	/**
+	 * Serve a file of an artifact.
+	 * @param groupId The group ID.
+	 * @param artifactId The artifact ID.
+	 * @param version The version.
+	 * @param extension The file extension, such as "pom" or "jar.sha1".
+	 * @param bytes The file contents.
+	 * @return This same object.
+	 */
+	public LocalRepository put(String groupId, String artifactId, String version, String extension, byte[] bytes) {
+		this.files.put(getPath(groupId, artifactId, version, extension), bytes);
+		return this;
+	}
+	
+	/**
+	 * Fail every request for a file of an artifact.
+	 * @param groupId The group ID.
+	 * @param artifactId The artifact ID.
+	 * @param version The version.
+	 * @param extension The file extension, such as "pom" or "jar.sha1".
+	 * @param status The HTTP status to respond with.
+	 * @return This same object.
+	 */
+	public LocalRepository fail(String groupId, String artifactId, String version, String extension, int status) {
+		this.statuses.put(getPath(groupId, artifactId, version, extension), status);
+		return this;
+	}
+	
+	/**
+	 * Serve the POM file of an artifact.
+	 * @param groupId The group ID.
+	 * @param artifactId The artifact ID.
+	 * @param version The version.
+	 * @param body The XML inside the project element.
+	 * @return This same object.
+	 */
+	public LocalRepository putPom(String groupId, String artifactId, String version, String body) {
+		String pom = "<project><modelVersion>4.0.0</modelVersion><groupId>" + groupId + "</groupId><artifactId>" + artifactId + "</artifactId><version>" + version + "</version>" + body + "</project>";
+		return put(groupId, artifactId, version, "pom", pom.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * 
+	 * @return The amount of requests served, found or not.
+	 */
+	public int getRequests() {
+		return this.requests.get();
+	}
+	
+	private static String getPath(String groupId, String artifactId, String version, String extension) {
+		return "/" + groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/" + artifactId + "-" + version + "." + extension;
+	}
+	
+	@Override
+	public void close() {
+		this.server.stop(0);
+	}
+
+}
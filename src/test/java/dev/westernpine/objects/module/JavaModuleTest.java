@@ -0,0 +1,77 @@
+package dev.westernpine.objects.module;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.TestJars;
+
+public class JavaModuleTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private final JarLoader jarLoader = new JarLoader() {};
+	
+	@Test
+	public void readsDescriptorArraysOfNames() throws Exception {
+		JavaModule module = module("arrays", "", ",\"depends\":[\"first\",\"second\"],\"softdepends\":[\"third\"]");
+		assertArrayEquals(new String[] {"first", "second"}, module.getDepends());
+		assertArrayEquals(new String[] {"third"}, module.getSoftDepends());
+	}
+	
+	@Test(timeout = 10_000)
+	public void lookupsWaitForModulesActivatingOnOtherThreads() throws Exception {
+		//"owner" is claimed first, but only creates its loader once its slow dependency loaded.
+		JavaModule slow = module("slow", "Thread.sleep(500);", "");
+		JavaModule owner = module("owner", "", ",\"depends\":[\"slow\"]");
+		JavaModule user = module("user", "Class.forName(\"owner.Main\", true, getClass().getClassLoader());", "");
+		JavaModule caller = module("caller", "Class.forName(\"user.Main\", true, getClass().getClassLoader());", "");
+		for(JavaModule module : new JavaModule[] {slow, owner, user, caller})
+			module.loadLazily();
+		CompletableFuture<Void> activating = CompletableFuture.runAsync(() -> activate(owner));
+		Thread.sleep(100);
+		activate(caller);
+		activating.get(5, TimeUnit.SECONDS);
+		for(JavaModule module : new JavaModule[] {slow, owner, user, caller})
+			assertTrue(module.isLoaded());
+	}
+	
+	@Test(timeout = 10_000)
+	public void modulesLookingUpEachOtherDontDeadlock() throws Exception {
+		JavaModule first = module("first", "Thread.sleep(200); Class.forName(\"second.Main\", false, getClass().getClassLoader());", "");
+		JavaModule second = module("second", "Thread.sleep(200); Class.forName(\"first.Main\", false, getClass().getClassLoader());", "");
+		first.loadLazily();
+		second.loadLazily();
+		CompletableFuture<Void> activating = CompletableFuture.runAsync(() -> activate(first));
+		activate(second);
+		assertNull(activating.get(5, TimeUnit.SECONDS));
+		assertTrue(first.isLoaded());
+		assertTrue(second.isLoaded());
+	}
+	
+	private JavaModule module(String name, String constructor, String json) throws Exception {
+		File file = new TestJars().withSource(name + ".Main", "package " + name + "; public class Main { public Main() throws Exception { " + constructor + " } }")
+				.withResource(JavaModule.MODULE_JSON_FILENAME, "{\"name\":\"" + name + "\",\"main\":\"" + name + ".Main\",\"version\":\"1\"" + json + "}")
+				.write(this.folder.newFile(name + ".jar"));
+		return new JavaModule(this.jarLoader, file);
+	}
+	
+	private static void activate(JavaModule module) {
+		try {
+			module.activate();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
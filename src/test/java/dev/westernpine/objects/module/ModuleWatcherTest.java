@@ -0,0 +1,53 @@
+package dev.westernpine.objects.module;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import dev.westernpine.JarLoader;
+import dev.westernpine.TestJars;
+import dev.westernpine.objects.DependencyMapper;
+import dev.westernpine.objects.DependencyMapper.Delta;
+
+public class ModuleWatcherTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void reloadsSoftDependents() throws Exception {
+		File directory = this.folder.newFolder();
+		File base = module(directory, "base", "");
+		File soft = module(directory, "soft", ",\"softdepends\":[\"base\"]");
+		File user = module(directory, "user", ",\"depends\":[\"soft\"]");
+		JarLoader jarLoader = new JarLoader() {};
+		DependencyMapper mapper = jarLoader.loadModules(Arrays.asList(base, soft, user));
+		for(JavaModule module : mapper.getMappedModules())
+			module.load();
+		try (ModuleWatcher watcher = new ModuleWatcher(jarLoader, mapper, directory, 0)) {
+			Delta delta = watcher.reload(Collections.singleton(base));
+			assertEquals(Arrays.asList("user", "soft", "base"), names(delta.getUnloadable()));
+			assertEquals(Arrays.asList("base", "soft", "user"), names(delta.getLoadable()));
+			assertEquals(3, mapper.getMappedModules().size());
+		}
+	}
+	
+	private static File module(File directory, String name, String json) throws Exception {
+		return new TestJars().withSource(name + ".Main", "package " + name + "; public class Main {}")
+				.withResource(JavaModule.MODULE_JSON_FILENAME, "{\"name\":\"" + name + "\",\"main\":\"" + name + ".Main\",\"version\":\"1\"" + json + "}")
+				.write(new File(directory, name + ".jar"));
+	}
+	
+	private static List<String> names(List<JavaModule> modules) {
+		return modules.stream().map(JavaModule::getName).collect(Collectors.toList());
+	}
+
+}